@@ -0,0 +1,61 @@
+package naturanaloge_optimierungsverfahren.algo;
+
+import naturanaloge_optimierungsverfahren.generator.RandomInstance;
+import naturanaloge_optimierungsverfahren.logic.CandidateLists;
+import naturanaloge_optimierungsverfahren.logic.DistanceMatrix;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ein Auswahlschritt einer Ameise, einmal mit freien Kandidaten und einmal mit vollständig
+ * besuchter Kandidatenliste (Rückfall auf alle Knoten)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx6g", "--add-modules=jdk.incubator.vector"})
+public class AntColonyOptimizationBenchmark {
+
+    @Param({"50", "200", "1000", "5000"})
+    int nodes;
+
+    private static final int CANDIDATES = 20;
+
+    AntColonyOptimization aco;
+    boolean[] halfVisited;
+    boolean[] candidatesVisited;
+    SplittableRandom random;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        DistanceMatrix distances = RandomInstance.euclidean(nodes, 1000.0, 42, true).getDistances();
+        CandidateLists candidates = CandidateLists.build(distances, CANDIDATES);
+        aco = new AntColonyOptimization(distances, 10, 0, 0.1, 1.0, 2.0, 42);
+        aco.setCandidateLists(candidates);
+        random = new SplittableRandom(42);
+        halfVisited = new boolean[nodes];
+        for (int i = 0; i < nodes; i++) {
+            halfVisited[i] = random.nextBoolean();
+        }
+        halfVisited[0] = true;
+        candidatesVisited = new boolean[nodes];
+        candidatesVisited[0] = true;
+        for (int rank = 0; rank < candidates.k(); rank++) {
+            candidatesVisited[candidates.get(0, rank)] = true;
+        }
+    }
+
+    @Benchmark
+    public int selectNextNode() {
+        return aco.selectNextNode(0, halfVisited, random);
+    }
+
+    @Benchmark
+    public int selectNextNodeFallback() {
+        return aco.selectNextNode(0, candidatesVisited, random);
+    }
+}
@@ -0,0 +1,57 @@
+package naturanaloge_optimierungsverfahren.algo;
+
+import naturanaloge_optimierungsverfahren.generator.RandomInstance;
+import naturanaloge_optimierungsverfahren.logic.Tour;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Selektion einer vollen Population (Überlebende plus Nachkommen, also doppelte Populationsgröße)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx6g", "--add-modules=jdk.incubator.vector"})
+public class GeneticAlgorithmsBenchmark {
+
+    @Param({"50", "200", "1000", "5000"})
+    int nodes;
+
+    @Param({"100", "1000", "10000"})
+    int populationSize;
+
+    /** 0 = Tournament, 1 = Roulette Wheel */
+    @Param({"0", "1"})
+    int selectionType;
+
+    GeneticAlgorithms ga;
+    List<Tour> fullPopulation;
+    SplittableRandom random;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ga = new GeneticAlgorithms(RandomInstance.euclidean(nodes, 1000.0, 42, true).getDistances(),
+                2 * populationSize, 0, 0, 0.5, 0.5, 42);
+        ga.setSelection(selectionType, 2);
+        // getBest liefert sortiert, gemischt entspricht die Reihenfolge der einer laufenden Suche
+        fullPopulation = new ArrayList<>(ga.getBest(2 * populationSize));
+        Collections.shuffle(fullPopulation, new Random(42));
+        random = new SplittableRandom(42);
+    }
+
+    /**
+     * Die Auswahl verändert weder GA noch Population, jeder Aufruf arbeitet auf derselben vollen Population
+     */
+    @Benchmark
+    public int[] selectSurvivors() {
+        return ga.selectSurvivors(fullPopulation, random);
+    }
+}
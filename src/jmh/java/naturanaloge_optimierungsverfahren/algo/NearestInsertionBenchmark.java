@@ -0,0 +1,36 @@
+package naturanaloge_optimierungsverfahren.algo;
+
+import naturanaloge_optimierungsverfahren.generator.RandomInstance;
+import naturanaloge_optimierungsverfahren.logic.DistanceMatrix;
+import naturanaloge_optimierungsverfahren.logic.Tour;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Vollständiger Lauf von {@link NearestInsertion#solve()}, die Distanzmatrix ist vorab gebaut
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx6g", "--add-modules=jdk.incubator.vector"})
+public class NearestInsertionBenchmark {
+
+    @Param({"50", "200", "1000", "5000"})
+    int nodes;
+
+    NearestInsertion nearestInsertion;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        DistanceMatrix distances = RandomInstance.euclidean(nodes, 1000.0, 42, true).getDistances();
+        nearestInsertion = new NearestInsertion(distances);
+    }
+
+    @Benchmark
+    public Tour solve() {
+        return nearestInsertion.solve();
+    }
+}
@@ -0,0 +1,75 @@
+package naturanaloge_optimierungsverfahren.logic;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Einzelne Abfragen von {@link EuclideanDistances#distance(int, int)}, je Aufruf {@link #PAIRS} Paare:
+ * Knoten in zufälliger Reihenfolge mit ihren nächsten Nachbarn wie in der lokalen Suche, oder zufällige Paare
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx6g", "--add-modules=jdk.incubator.vector"})
+public class EuclideanDistancesBenchmark {
+
+    private static final int PAIRS = 1 << 16;
+    private static final int NEIGHBOURS = 8;
+
+    @Param({"10000", "100000", "1000000"})
+    int nodes;
+
+    /** EuclideanDistances.EXACT oder ROUND */
+    @Param({"0", "1"})
+    int rounding;
+
+    EuclideanDistances distances;
+    int[] from;
+    int[] neighbour;
+    int[] other;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        double[] x = new double[nodes];
+        double[] y = new double[nodes];
+        for (int i = 0; i < nodes; i++) {
+            x[i] = random.nextDouble() * 1_000_000;
+            y[i] = random.nextDouble() * 1_000_000;
+        }
+        distances = new EuclideanDistances(x, y, rounding);
+        CandidateLists candidates = CandidateLists.build(distances, NEIGHBOURS);
+        from = new int[PAIRS];
+        neighbour = new int[PAIRS];
+        other = new int[PAIRS];
+        for (int p = 0; p < PAIRS; p++) {
+            from[p] = random.nextInt(nodes);
+            neighbour[p] = candidates.get(from[p], p % NEIGHBOURS);
+            other[p] = random.nextInt(nodes);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PAIRS)
+    public double neighbours() {
+        double sum = 0;
+        for (int p = 0; p < PAIRS; p++) {
+            sum += distances.distance(from[p], neighbour[p]);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PAIRS)
+    public double randomPairs() {
+        double sum = 0;
+        for (int p = 0; p < PAIRS; p++) {
+            sum += distances.distance(from[p], other[p]);
+        }
+        return sum;
+    }
+}
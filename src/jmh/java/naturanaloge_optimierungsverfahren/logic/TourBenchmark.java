@@ -0,0 +1,115 @@
+package naturanaloge_optimierungsverfahren.logic;
+
+import naturanaloge_optimierungsverfahren.generator.RandomInstance;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Konstruktion, Bewertung und Operatoren von {@link Tour}
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx6g", "--add-modules=jdk.incubator.vector"})
+public class TourBenchmark {
+
+    @Param({"50", "200", "1000", "5000"})
+    int nodes;
+
+    /**
+     * Eigener State, damit die Operator-Parameter nur die Operator-Benchmarks vervielfachen
+     */
+    @State(Scope.Thread)
+    public static class Recombination {
+        /** 0 = Order, 1 = Cycle, 2 = Partially Mapped, 3 = Edge Recombination */
+        @Param({"0", "1", "2", "3"})
+        int recombinationType;
+    }
+
+    @State(Scope.Thread)
+    public static class Mutation {
+        /** 0 = Inversion, 1 = Vertauschen, 2 = Verschieben */
+        @Param({"0", "1", "2"})
+        int mutationType;
+    }
+
+    /**
+     * Ein Block Nachkommen wie in GeneticAlgorithms, bewertet über den BatchEvaluator
+     */
+    @State(Scope.Thread)
+    public static class Batch {
+        /** false = skalar, true = Vector API, falls verfügbar */
+        @Param({"false", "true"})
+        boolean vectorized;
+
+        BatchEvaluator evaluator;
+        int[][] paths;
+        double[] lengths;
+
+        @Setup(Level.Trial)
+        public void setUp(TourBenchmark benchmark) {
+            evaluator = vectorized ? BatchEvaluator.create(benchmark.distances) : BatchEvaluator.scalar(benchmark.distances);
+            paths = new int[64][];
+            for (int i = 0; i < paths.length; i++) {
+                paths[i] = new Tour(benchmark.distances, benchmark.random).getPath();
+            }
+            lengths = new double[paths.length];
+        }
+    }
+
+    DistanceMatrix distances;
+    Tour parent1;
+    Tour parent2;
+    int[] child;
+    Tour.Workspace workspace;
+    SplittableRandom random;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        distances = RandomInstance.euclidean(nodes, 1000.0, 42, true).getDistances();
+        random = new SplittableRandom(42);
+        parent1 = new Tour(distances, random);
+        parent2 = new Tour(distances, random);
+        child = new int[nodes];
+        workspace = new Tour.Workspace(nodes);
+    }
+
+    @Benchmark
+    public Tour construction() {
+        return new Tour(parent1.getPath().clone(), distances);
+    }
+
+    @Benchmark
+    public double calcPathWeight() {
+        return Tour.calcPathWeight(parent1.getPath(), distances);
+    }
+
+    @Benchmark
+    public double[] batchEvaluation(Batch batch) {
+        batch.evaluator.evaluate(batch.paths, batch.paths.length, batch.lengths);
+        return batch.lengths;
+    }
+
+    @Benchmark
+    public Tour recombination(Recombination operator) {
+        return parent1.recombination(operator.recombinationType, parent2, new int[nodes], workspace, random);
+    }
+
+    /**
+     * Nur der Operator ohne Bewertung des Nachkommen
+     */
+    @Benchmark
+    public int[] crossover(Recombination operator) {
+        parent1.crossover(operator.recombinationType, parent2, child, workspace, random);
+        return child;
+    }
+
+    @Benchmark
+    public Tour mutation(Mutation operator) {
+        return parent1.mutation(operator.mutationType, new int[nodes], workspace, random);
+    }
+}
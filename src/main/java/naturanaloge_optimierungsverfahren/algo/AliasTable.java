@@ -0,0 +1,56 @@
+package naturanaloge_optimierungsverfahren.algo;
+
+import java.util.SplittableRandom;
+
+/**
+ * Alias-Tabelle nach Vose für die Roulette-Rad-Auswahl: Aufbau in O(n), jede Ziehung in O(1)
+ */
+class AliasTable {
+
+    private final double[] probability;
+    private final int[] alias;
+
+    /**
+     * @param weights nicht negative Gewichte, mindestens eines positiv
+     */
+    AliasTable(double[] weights) {
+        int n = weights.length;
+        probability = new double[n];
+        alias = new int[n];
+        double sum = 0.0;
+        for (double w : weights) {
+            sum += w;
+        }
+        if (!(sum > 0)) throw new IllegalArgumentException();
+        double[] scaled = new double[n];
+        int[] small = new int[n];
+        int[] large = new int[n];
+        int smallSize = 0;
+        int largeSize = 0;
+        for (int i = 0; i < n; i++) {
+            scaled[i] = weights[i] * n / sum;
+            if (scaled[i] < 1.0) small[smallSize++] = i;
+            else large[largeSize++] = i;
+        }
+        while (smallSize > 0 && largeSize > 0) {
+            int s = small[--smallSize];
+            int l = large[--largeSize];
+            probability[s] = scaled[s];
+            alias[s] = l;
+            scaled[l] = (scaled[l] + scaled[s]) - 1.0;
+            if (scaled[l] < 1.0) small[smallSize++] = l;
+            else large[largeSize++] = l;
+        }
+        // Reste durch Rundungsfehler
+        while (largeSize > 0) probability[large[--largeSize]] = 1.0;
+        while (smallSize > 0) probability[small[--smallSize]] = 1.0;
+    }
+
+    /**
+     * @return Index i mit Wahrscheinlichkeit weights[i] / Summe
+     */
+    int sample(SplittableRandom random) {
+        int column = random.nextInt(probability.length);
+        return random.nextDouble() < probability[column] ? column : alias[column];
+    }
+}
@@ -1,156 +1,455 @@
 package naturanaloge_optimierungsverfahren.algo;
 
-import org.graphstream.graph.Edge;
+import naturanaloge_optimierungsverfahren.logic.BatchEvaluator;
+import naturanaloge_optimierungsverfahren.logic.CandidateLists;
+import naturanaloge_optimierungsverfahren.logic.DistanceMatrix;
+import naturanaloge_optimierungsverfahren.logic.Distances;
+import naturanaloge_optimierungsverfahren.logic.Seeds;
+import naturanaloge_optimierungsverfahren.logic.Tour;
 import org.graphstream.graph.Graph;
-import org.graphstream.graph.Node;
-import org.graphstream.graph.implementations.SingleGraph;
 
-import java.util.ArrayList;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
 import java.util.Arrays;
-import java.util.List;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
 
 
-public class AntColonyOptimization {
+public class AntColonyOptimization implements Solver {
+    /** Anzahl nächster Nachbarn, auf die sich eine Ameise zunächst beschränkt */
+    private static final int DEFAULT_CANDIDATES = 20;
+    /** seed, iteration, bestTourLength, minPheromone, maxPheromone, bestTour vorhanden */
+    private static final int CHECKPOINT_FIELD_BYTES = 40;
+
     private Graph graph;
+    private Distances distances;
+    private BatchEvaluator evaluator;
+    private CandidateLists candidates;
     private int numAnts;
     private int numIterations;
     private double evaporationRate;
     private double alpha;
     private double beta;
-    private double[][] pheromones;
-    private List<Node> bestTour;
+    private long seed;
+    /** Anzahl abgeschlossener Iterationen über alle Aufrufe von solve */
+    private int iteration;
+    private ExecutorService executor;
+    /** von setParallelism angelegter Pool, wird beim Ersetzen und in close() heruntergefahren */
+    private ExecutorService ownPool;
+    /** null = kein Checkpoint */
+    private Checkpoint checkpoint;
+    private int n;
+    /** symmetrische n×n-Matrix, Eintrag [i*n+j] gehört zur Kante zwischen den Knoten mit Index i und j */
+    private double[] pheromones;
+    /** (1/Distanz)^beta je Knotenpaar, einmalig berechnet */
+    private double[] heuristic;
+    /** pheromone^alpha * heuristic, wird einmal pro Iteration berechnet und beim Tourbau nur gelesen */
+    private double[] choiceInfo;
+    private double minPheromone = 0.0;
+    private double maxPheromone = Double.MAX_VALUE;
+    private int[] bestTour;
     private double bestTourLength = Double.MAX_VALUE;
+    /** Kopie von bestTour für das Auslesen aus anderen Threads während solve() */
+    private volatile Tour best;
+    private final ProgressFeed progress = new ProgressFeed();
 
     public AntColonyOptimization(Graph graph, int numAnts, int numIterations, double evaporationRate, double alpha, double beta) {
+        this(graph, numAnts, numIterations, evaporationRate, alpha, beta, new Random().nextLong());
+    }
+
+    public AntColonyOptimization(Graph graph, int numAnts, int numIterations, double evaporationRate, double alpha, double beta,
+                                 long seed) {
+        this(new DistanceMatrix(graph), numAnts, numIterations, evaporationRate, alpha, beta, seed);
         this.graph = graph;
+    }
+
+    /**
+     * @param distances
+     * @param numAnts
+     * @param numIterations
+     * @param evaporationRate
+     * @param alpha
+     * @param beta
+     * @param seed gleicher Seed ergibt unabhängig von der Parallelität dieselben Touren
+     */
+    public AntColonyOptimization(Distances distances, int numAnts, int numIterations, double evaporationRate, double alpha,
+                                 double beta, long seed) {
+        this.distances = distances;
+        this.evaluator = BatchEvaluator.create(distances);
         this.numAnts = numAnts;
         this.numIterations = numIterations;
         this.evaporationRate = evaporationRate;
         this.alpha = alpha;
         this.beta = beta;
-        this.bestTour = new ArrayList<>();
+        this.seed = seed;
+        this.candidates = CandidateLists.build(distances, DEFAULT_CANDIDATES);
         initializePheromones();
     }
 
+    /**
+     * Ersetzt die Kandidatenlisten, z.B. durch gemeinsam genutzte oder mit anderem k
+     * @param candidates Listen über derselben Distanzmatrix
+     */
+    public void setCandidateLists(CandidateLists candidates) {
+        if (candidates.size() != n) throw new IllegalArgumentException();
+        this.candidates = candidates;
+    }
+
+    /**
+     * Baut die Touren einer Iteration mit threads Worker-Threads, 1 = sequentiell im aufrufenden Thread
+     * @param threads
+     */
+    public void setParallelism(int threads) {
+        if (threads < 1) throw new IllegalArgumentException();
+        ExecutorService pool = threads == 1 ? null : new ForkJoinPool(threads);
+        setExecutor(pool);
+        ownPool = pool;
+    }
+
+    /**
+     * Baut die Touren auf dem übergebenen Executor, null = sequentiell im aufrufenden Thread.
+     * Der Executor wird nicht heruntergefahren, ein zuvor über setParallelism angelegter Pool schon.
+     * @param executor
+     */
+    public void setExecutor(ExecutorService executor) {
+        if (ownPool != null) ownPool.shutdown();
+        ownPool = null;
+        this.executor = executor;
+    }
+
     private void initializePheromones() {
-        int size = graph.getEdgeCount();
-        pheromones = new double[size][size];
-        for (int i = 0; i < size; i++) {
-            Arrays.fill(pheromones[i], 1.0);
+        n = distances.size();
+        if ((long) n * n > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException(n + " nodes are too many for the pheromone matrix");
+        }
+        pheromones = new double[n * n];
+        Arrays.fill(pheromones, 1.0);
+        heuristic = new double[n * n];
+        double maxHeuristic = 0.0;
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                heuristic[i * n + j] = i == j ? 0.0 : Math.pow(1.0 / distances.distance(i, j), beta);
+                if (Double.isFinite(heuristic[i * n + j])) maxHeuristic = Math.max(maxHeuristic, heuristic[i * n + j]);
+            }
+        }
+        // Knoten mit gleichen Koordinaten (Distanz 0) bekommen den größten endlichen Wert statt Infinity,
+        // sonst wird choiceInfo unendlich und die Roulette-Summe NaN
+        double coincident = maxHeuristic > 0 ? maxHeuristic : 1.0;
+        for (int i = 0; i < heuristic.length; i++) {
+            if (!Double.isFinite(heuristic[i])) heuristic[i] = coincident;
         }
+        choiceInfo = new double[n * n];
+        updateChoiceInfo();
     }
 
-    public void solve() {
-        for (int iteration = 0; iteration < numIterations; iteration++) {
-            List<List<Node>> allTours = new ArrayList<>();
+    /**
+     * Schreibt alle interval Iterationen und am Ende von solve den Zustand nach file: Pheromone (nur das
+     * obere Dreieck, die Matrix ist symmetrisch), beste Tour, Pheromongrenzen, Seed und Iterationszähler.
+     * Der Zufallsstrom einer Iteration folgt aus Seed und Iteration. Geschrieben wird asynchron, die Suche
+     * wartet nur, wenn der vorige Checkpoint noch nicht fertig ist.
+     * @param file Zieldatei, null = aus
+     * @param interval Abstand in Iterationen
+     */
+    public void setCheckpoint(Path file, int interval) {
+        checkpoint = file == null ? null : new Checkpoint(file, interval);
+    }
 
-            for (int ant = 0; ant < numAnts; ant++) {
-                List<Node> tour = generateTour();
-                allTours.add(tour);
+    /**
+     * Setzt den Zustand auf den eines Checkpoints, solve läuft danach weiter, als wäre die Suche nie
+     * unterbrochen worden. numAnts, alpha, beta und evaporationRate kommen aus diesem Objekt.
+     * @param file mit {@link #setCheckpoint(Path, int)} geschrieben, für dieselbe Instanz
+     * @throws IOException wenn die Datei kein Checkpoint einer Ameisenkolonie über n Knoten ist
+     */
+    public void restore(Path file) throws IOException {
+        int nodeBytes = Checkpoint.nodeBytes(n);
+        try (Checkpoint.Reader reader = Checkpoint.open(file, Checkpoint.ANT_COLONY, n, CHECKPOINT_FIELD_BYTES)) {
+            ByteBuffer fields = reader.fields();
+            long restoredSeed = fields.getLong();
+            int restoredIteration = fields.getInt();
+            double restoredBestLength = fields.getDouble();
+            double restoredMin = fields.getDouble();
+            double restoredMax = fields.getDouble();
+            boolean hasBest = fields.getInt() != 0;
+            Checkpoint.Section tour = reader.section(hasBest ? n : 0, nodeBytes);
+            Checkpoint.Section values = reader.section((long) n * (n - 1) / 2, Double.BYTES);
+            int[] restoredBest = null;
+            if (hasBest) {
+                restoredBest = new int[n];
+                for (int i = 0; i < n; i++) {
+                    restoredBest[i] = tour.getNode();
+                }
             }
+            for (int j = 1; j < n; j++) {
+                for (int i = 0; i < j; i++) {
+                    double value = values.getDouble();
+                    pheromones[i * n + j] = value;
+                    pheromones[j * n + i] = value;
+                }
+            }
+            // die Diagonale geht wegen heuristic = 0 nie in eine Wahl ein
+            for (int i = 0; i < n; i++) {
+                pheromones[i * n + i] = restoredMin;
+            }
+            seed = restoredSeed;
+            iteration = restoredIteration;
+            bestTour = restoredBest;
+            bestTourLength = restoredBestLength;
+            minPheromone = restoredMin;
+            maxPheromone = restoredMax;
+            best = restoredBest == null ? null : bestAsTour();
+            updateChoiceInfo();
+        }
+    }
 
-            for (List<Node> tour : allTours) {
-                double tourLength = calculateTourLength(tour);
+    /**
+     * Tour-Objekt zu bestTour mit bestTourLength aus dem BatchEvaluator, damit getBest() und die Meldungen
+     * genau die Länge tragen, mit der das Verfahren verglichen hat
+     */
+    private Tour bestAsTour() {
+        int[] path = bestTour.clone();
+        return new Tour(path, distances, bestTourLength, Tour.calcHash(path));
+    }
+
+    /**
+     * Kopiert den Zustand in Puffer und übergibt sie dem Schreib-Thread
+     */
+    private void writeCheckpoint() {
+        int nodeBytes = Checkpoint.nodeBytes(n);
+        ByteBuffer fields = Checkpoint.fields(Checkpoint.ANT_COLONY, n, CHECKPOINT_FIELD_BYTES)
+                .putLong(seed).putInt(iteration).putDouble(bestTourLength)
+                .putDouble(minPheromone).putDouble(maxPheromone).putInt(bestTour == null ? 0 : 1);
+        Checkpoint.Section tour = Checkpoint.Section.allocate(bestTour == null ? 0 : n, nodeBytes);
+        Checkpoint.Section values = Checkpoint.Section.allocate((long) n * (n - 1) / 2, Double.BYTES);
+        if (bestTour != null) {
+            for (int node : bestTour) {
+                tour.putNode(node);
+            }
+        }
+        for (int j = 1; j < n; j++) {
+            for (int i = 0; i < j; i++) {
+                values.putDouble(pheromones[i * n + j]);
+            }
+        }
+        checkpoint.write(fields, tour, values);
+    }
+
+    /**
+     * @return Anzahl abgeschlossener Iterationen, nach {@link #restore(Path)} einschließlich der des Checkpoints
+     */
+    public int getIteration() {
+        return iteration;
+    }
+
+    public void solve() {
+        solve(Termination.iterations(numIterations));
+    }
+
+    /**
+     * Anytime-Modus: läuft statt numIterations Iterationen bis termination erreicht ist, die beste Tour
+     * kann währenddessen aus anderen Threads über {@link #getBestTour()} gelesen werden
+     * @param termination z.B. Zeitbudget und Stagnation
+     * @return beste gefundene Tour
+     */
+    @Override
+    public Tour solve(Termination termination) {
+        long start = System.nanoTime();
+        progress.start();
+        int iterations = 0;
+        int stagnation = 0;
+        while (!termination.isReached(start, iterations, stagnation, bestTourLength)) {
+            int[] previousBest = bestTour;
+            int[][] allTours = generateTours(new SplittableRandom(Seeds.derive(seed, iteration)));
+            double[] tourLengths = new double[numAnts];
+            evaluator.evaluate(allTours, numAnts, tourLengths);
+
+            // Ablage in fester Reihenfolge der Ameisen, damit das Ergebnis nicht von der Thread-Verteilung abhängt
+            for (int ant = 0; ant < numAnts; ant++) {
+                int[] tour = allTours[ant];
+                double tourLength = tourLengths[ant];
                 if (tourLength < bestTourLength) {
                     bestTour = tour;
                     bestTourLength = tourLength;
+                    updatePheromoneLimits();
                 }
                 updatePheromones(tour, tourLength);
             }
-
             evaporatePheromones();
+            updateChoiceInfo();
+            iteration++;
+            iterations++;
+            stagnation = bestTour == previousBest ? stagnation + 1 : 0;
+            if (bestTour != previousBest) {
+                best = bestAsTour();
+                progress.publish(best, iteration, (long) iteration * numAnts);
+            }
+            if (checkpoint != null && checkpoint.isDue(iteration)) writeCheckpoint();
+        }
+        if (checkpoint != null) {
+            if (iterations == 0 || !checkpoint.isDue(iteration)) writeCheckpoint();
+            checkpoint.await();
         }
+        return best;
+    }
+
+    /**
+     * Baut die Touren aller Ameisen, jede mit eigenem Zufallsstrom. Pheromone und choiceInfo
+     * werden dabei nur gelesen, deshalb brauchen die Threads keine Synchronisation.
+     * @param random Zufallsstrom der Kolonie, liefert per split() einen Strom je Ameise
+     * @return Touren in Reihenfolge der Ameisen
+     */
+    private int[][] generateTours(SplittableRandom random) {
+        int[][] allTours = new int[numAnts][];
+        Blocks.run(executor, 0, numAnts, 1, random, (ant, end, antRandom) -> allTours[ant] = generateTour(antRandom));
+        return allTours;
     }
 
-    private List<Node> generateTour() {
-        List<Node> tour = new ArrayList<>();
-        Node startNode = graph.getNode(0);
-        tour.add(startNode);
+    private int[] generateTour(SplittableRandom random) {
+        int[] tour = new int[n];
+        boolean[] visited = new boolean[n];
+        int currentNode = 0; // Startknoten
+        tour[0] = currentNode;
+        visited[currentNode] = true;
 
-        Node currentNode = startNode;
-        while (tour.size() < graph.getNodeCount()) {
-            Node nextNode = selectNextNode(currentNode, tour);
-            tour.add(nextNode);
+        for (int i = 1; i < n; i++) {
+            int nextNode = selectNextNode(currentNode, visited, random);
+            tour[i] = nextNode;
+            visited[nextNode] = true;
             currentNode = nextNode;
         }
-
-        tour.add(startNode); // Rückkehr zum Startknoten
-        return tour;
+        return tour; // Rückkehr zum Startknoten ist implizit
     }
 
-    private Node selectNextNode(Node currentNode, List<Node> tour) {
-        List<Node> neighbors = new ArrayList<>();
-        List<Edge> currentNodeEdges = currentNode.edges().toList();
-        for (Edge edge : currentNodeEdges) {
-            Node neighbor = edge.getOpposite(currentNode);
-            if (!tour.contains(neighbor)) {
-                neighbors.add(neighbor);
+    /**
+     * Wählt unter den unbesuchten Kandidaten von currentNode, nur wenn alle Kandidaten besucht
+     * sind unter allen unbesuchten Knoten
+     */
+    int selectNextNode(int currentNode, boolean[] visited, SplittableRandom random) {
+        int row = currentNode * n;
+        int k = candidates.k();
+        double sum = 0.0;
+        int last = -1;
+        for (int rank = 0; rank < k; rank++) {
+            int neighbor = candidates.get(currentNode, rank);
+            if (!visited[neighbor]) {
+                sum += choiceInfo[row + neighbor];
+                last = neighbor;
+            }
+        }
+        if (last >= 0) {
+            double rand = random.nextDouble() * sum;
+            for (int rank = 0; rank < k; rank++) {
+                int neighbor = candidates.get(currentNode, rank);
+                if (visited[neighbor]) continue;
+                rand -= choiceInfo[row + neighbor];
+                if (rand <= 0) {
+                    return neighbor;
+                }
             }
+            return last; // Rückfall
         }
 
-        double[] probabilities = new double[neighbors.size()];
-        double sum = 0.0;
-        for (int i = 0; i < neighbors.size(); i++) {
-            Node neighbor = neighbors.get(i);
-            double pheromone = pheromones[currentNode.getIndex()][neighbor.getIndex()];
-            Edge edge = currentNode.getEdgeBetween(neighbor);
-            double distance = Double.parseDouble(String.valueOf(edge.getAttribute("weight")));
-            probabilities[i] = Math.pow(pheromone, alpha) * Math.pow(1.0 / distance, beta);
-            sum += probabilities[i];
-        }
-
-        double rand = Math.random() * sum;
-        for (int i = 0; i < probabilities.length; i++) {
-            rand -= probabilities[i];
+        for (int neighbor = 0; neighbor < n; neighbor++) {
+            if (!visited[neighbor]) {
+                sum += choiceInfo[row + neighbor];
+                last = neighbor;
+            }
+        }
+        double rand = random.nextDouble() * sum;
+        for (int neighbor = 0; neighbor < n; neighbor++) {
+            if (visited[neighbor]) continue;
+            rand -= choiceInfo[row + neighbor];
             if (rand <= 0) {
-                return neighbors.get(i);
+                return neighbor;
             }
         }
 
-        return neighbors.get(neighbors.size() - 1); // Rückfall
+        return last; // Rückfall
     }
 
-    private double calculateTourLength(List<Node> tour) {
-        double length = 0.0;
-        for (int i = 0; i < tour.size() - 1; i++) {
-            Node currentNode = tour.get(i);
-            Node nextNode = tour.get(i + 1);
-            Edge edge = currentNode.getEdgeBetween(nextNode);
-            length += Double.parseDouble(String.valueOf(edge.getAttribute("weight")));
-        }
-        return length;
+    /**
+     * Grenzen wie im MAX-MIN Ant System: die Obergrenze ist der Gleichgewichtswert für die beste
+     * bekannte Tour, die Untergrenze hält jede Kante mit positiver Wahrscheinlichkeit wählbar
+     */
+    private void updatePheromoneLimits() {
+        maxPheromone = 1.0 / (evaporationRate * bestTourLength);
+        minPheromone = maxPheromone / (2.0 * n);
     }
 
-    private void updatePheromones(List<Node> tour, double tourLength) {
-        for (int i = 0; i < tour.size() - 1; i++) {
-            Node currentNode = tour.get(i);
-            Node nextNode = tour.get(i + 1);
-            pheromones[currentNode.getIndex()][nextNode.getIndex()] += 1.0 / tourLength;
+    private void updatePheromones(int[] tour, double tourLength) {
+        double deposit = 1.0 / tourLength;
+        for (int i = 0; i < tour.length; i++) {
+            int a = tour[i];
+            int b = tour[(i + 1) % tour.length];
+            double value = Math.min(maxPheromone, pheromones[a * n + b] + deposit);
+            pheromones[a * n + b] = value;
+            pheromones[b * n + a] = value;
         }
     }
 
     private void evaporatePheromones() {
+        double factor = 1.0 - evaporationRate;
         for (int i = 0; i < pheromones.length; i++) {
-            for (int j = 0; j < pheromones[i].length; j++) {
-                pheromones[i][j] *= (1.0 - evaporationRate);
-            }
+            pheromones[i] = Math.min(maxPheromone, Math.max(minPheromone, pheromones[i] * factor));
+        }
+    }
+
+    private void updateChoiceInfo() {
+        for (int i = 0; i < choiceInfo.length; i++) {
+            double pheromone = alpha == 1.0 ? pheromones[i] : Math.pow(pheromones[i], alpha);
+            choiceInfo[i] = pheromone * heuristic[i];
         }
     }
 
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
-        if (!bestTour.isEmpty()) sb.append(bestTour.get(0));
-        for (int i = 1; i < bestTour.size(); i++) {
-            sb.append(" - ").append(bestTour.get(i-1).getEdgeBetween(bestTour.get(i)).getId()).append(" - ");
-            sb.append(bestTour.get(i));
+        if (bestTour != null) {
+            for (int node : bestTour) {
+                sb.append(graph == null ? String.valueOf(node) : graph.getNode(node).getId()).append(" - ");
+            }
+            sb.append(graph == null ? String.valueOf(bestTour[0]) : graph.getNode(bestTour[0]).getId());
         }
         sb.append(" || - path weight: ").append(bestTourLength);
         return sb.toString();
     }
 
+    /**
+     * @return Länge der besten gefundenen Tour, Double.MAX_VALUE vor der ersten Iteration
+     */
     public double getBestTourLength() {
-        return bestTourLength;
+        Tour t = best;
+        return t == null ? Double.MAX_VALUE : t.getPathWeight();
+    }
+
+    /**
+     * @return beste gefundene Tour oder null vor der ersten Iteration, darf auch während solve()
+     * aus anderen Threads aufgerufen werden
+     */
+    public Tour getBestTour() {
+        return best;
+    }
+
+    @Override
+    public Tour getBest() {
+        return best;
+    }
+
+    /**
+     * Meldet jede Iteration, in der sich die beste Tour verbessert hat, evaluations zählt die gebauten Ameisentouren
+     */
+    @Override
+    public Flow.Publisher<Improvement> improvements() {
+        return progress.publisher();
+    }
+
+    @Override
+    public void close() {
+        setExecutor(null);
+        progress.close();
     }
 
 }
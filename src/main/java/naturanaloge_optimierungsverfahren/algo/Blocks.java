@@ -0,0 +1,58 @@
+package naturanaloge_optimierungsverfahren.algo;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Führt eine Schleife über [first, end) in Blöcken fester Größe aus, jeder Block mit eigenem Zufallsstrom.
+ * Die Ströme werden vor dem Start in Blockreihenfolge abgespalten, die Blockeinteilung hängt nicht von der
+ * Anzahl der Threads ab, deshalb liefert ein Seed sequentiell und parallel dasselbe Ergebnis.
+ */
+final class Blocks {
+
+    interface Body {
+        /** bearbeitet die Indizes [from, to) */
+        void run(int from, int to, SplittableRandom random);
+    }
+
+    private Blocks() {
+    }
+
+    /**
+     * @param executor null = sequentiell im aufrufenden Thread, wird nicht heruntergefahren
+     * @param random liefert per split() einen Strom je Block
+     */
+    static void run(ExecutorService executor, int first, int end, int size, SplittableRandom random, Body body) {
+        if (executor == null) {
+            for (int from = first; from < end; from += size) {
+                body.run(from, Math.min(end, from + size), random.split());
+            }
+            return;
+        }
+        List<Callable<Void>> blocks = new ArrayList<>();
+        for (int blockStart = first; blockStart < end; blockStart += size) {
+            int from = blockStart;
+            int to = Math.min(end, blockStart + size);
+            SplittableRandom blockRandom = random.split();
+            blocks.add(() -> {
+                body.run(from, to, blockRandom);
+                return null;
+            });
+        }
+        try {
+            for (Future<Void> future : executor.invokeAll(blocks)) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package naturanaloge_optimierungsverfahren.algo;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Binäres Abbild des Zustands eines Verfahrens für den Neustart. Aufbau, little-endian:
+ * Kopf (Magic "TSPC", Version, Art, Knotenanzahl n), feste Felder des Verfahrens, danach Abschnitte
+ * gleich breiter Werte ohne Trennzeichen. Knoten belegen 2 Byte, ab n > 65536 Knoten 4 Byte.
+ * <p>
+ * Der Zustand wird im Thread der Suche in Puffer kopiert, geschrieben wird auf einem eigenen Thread über
+ * einen FileChannel in eine temporäre Datei, die anschließend atomar umbenannt wird. Die Datei ist also
+ * immer entweder der alte oder der neue vollständige Stand. Gelesen wird über Memory Mapping.
+ * Je Checkpoint ist höchstens ein Schreibvorgang offen, der nächste wartet auf ihn.
+ */
+final class Checkpoint {
+
+    static final int GENETIC = 1;
+    static final int ANT_COLONY = 2;
+
+    private static final int MAGIC = 0x43505354;
+    private static final short VERSION = 1;
+    private static final int HEADER_BYTES = 12;
+    /** Abschnitte werden in Stücke dieser Größe geteilt, ein Mapping und ein ByteBuffer fassen höchstens 2 GB */
+    private static final int CHUNK_BYTES = 1 << 30;
+
+    /** ein gemeinsamer Thread für alle Checkpoints, hält die JVM nicht am Leben */
+    private static final ExecutorService WRITER = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "checkpoint-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Path file;
+    private final int interval;
+    private CompletableFuture<Void> pending = CompletableFuture.completedFuture(null);
+
+    /**
+     * @param file Zieldatei, daneben entsteht beim Schreiben file.tmp
+     * @param interval Abstand in Iterationen
+     */
+    Checkpoint(Path file, int interval) {
+        if (interval < 1) throw new IllegalArgumentException();
+        this.file = file;
+        this.interval = interval;
+    }
+
+    boolean isDue(int iteration) {
+        return iteration % interval == 0;
+    }
+
+    /**
+     * Schreibt die Puffer asynchron hintereinander in die Datei, sie dürfen danach nicht mehr verändert werden
+     * @param fields Kopf und feste Felder aus {@link #fields(int, int, int)}
+     * @param sections Abschnitte in Dateireihenfolge
+     */
+    void write(ByteBuffer fields, Section... sections) {
+        await();
+        List<ByteBuffer> buffers = new ArrayList<>();
+        buffers.add(fields.flip());
+        for (Section section : sections) {
+            for (ByteBuffer chunk : section.chunks) {
+                buffers.add(chunk.flip());
+            }
+        }
+        ByteBuffer[] data = buffers.toArray(new ByteBuffer[0]);
+        pending = CompletableFuture.runAsync(() -> {
+            try {
+                writeNow(data);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, WRITER);
+    }
+
+    /**
+     * Wartet auf den offenen Schreibvorgang
+     * @throws UncheckedIOException wenn er fehlgeschlagen ist
+     */
+    void await() {
+        try {
+            pending.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof UncheckedIOException io) throw io;
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            pending = CompletableFuture.completedFuture(null);
+        }
+    }
+
+    private void writeNow(ByteBuffer[] data) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            long remaining = 0;
+            for (ByteBuffer buffer : data) {
+                remaining += buffer.remaining();
+            }
+            while (remaining > 0) {
+                remaining -= channel.write(data);
+            }
+            channel.force(false);
+        }
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * @param fieldBytes Größe der festen Felder des Verfahrens
+     * @return Puffer mit geschriebenem Kopf, die Felder folgen an der aktuellen Position
+     */
+    static ByteBuffer fields(int kind, int n, int fieldBytes) {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + fieldBytes).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC).putShort(VERSION).putShort((short) kind).putInt(n);
+        return buffer;
+    }
+
+    /**
+     * Bildet die Datei in den Speicher ab und prüft den Kopf
+     * @param kind erwartete Art
+     * @param n erwartete Knotenanzahl
+     * @param fieldBytes Größe der festen Felder
+     * @throws IOException wenn die Datei nicht zu kind und n passt oder zu kurz ist
+     */
+    static Reader open(Path file, int kind, int n, int fieldBytes) throws IOException {
+        Reader reader = new Reader(file);
+        try {
+            ByteBuffer header = reader.map(HEADER_BYTES + fieldBytes);
+            if (header.getInt() != MAGIC || header.getShort() != VERSION) throw new IOException(file + ": not a checkpoint");
+            if (header.getShort() != kind) throw new IOException(file + ": checkpoint of another algorithm");
+            int nodes = header.getInt();
+            if (nodes != n) throw new IOException(file + ": checkpoint for " + nodes + " nodes, expected " + n);
+            reader.fields = header;
+            return reader;
+        } catch (IOException e) {
+            reader.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Folge gleich breiter Werte, zum Schreiben auf dem Heap, zum Lesen abgebildet
+     */
+    static final class Section {
+        private final ByteBuffer[] chunks;
+        private final int width;
+        private int current;
+
+        private Section(ByteBuffer[] chunks, int width) {
+            this.chunks = chunks;
+            this.width = width;
+        }
+
+        /**
+         * @param count Anzahl Werte
+         * @param width Bytes je Wert, für Knoten {@link #nodeBytes(int)}
+         */
+        static Section allocate(long count, int width) {
+            long bytes = count * width;
+            ByteBuffer[] chunks = new ByteBuffer[(int) Math.max(1, (bytes + CHUNK_BYTES - 1) / CHUNK_BYTES)];
+            for (int c = 0; c < chunks.length; c++) {
+                int size = (int) Math.min(CHUNK_BYTES, bytes - (long) c * CHUNK_BYTES);
+                chunks[c] = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+            }
+            return new Section(chunks, width);
+        }
+
+        /** Stück mit mindestens bytes freien Bytes, CHUNK_BYTES ist ein Vielfaches jeder Wertbreite */
+        private ByteBuffer chunk(int bytes) {
+            if (chunks[current].remaining() < bytes) current++;
+            return chunks[current];
+        }
+
+        void putNode(int node) {
+            if (width == Character.BYTES) {
+                chunk(Character.BYTES).putChar((char) node);
+            } else {
+                chunk(Integer.BYTES).putInt(node);
+            }
+        }
+
+        int getNode() {
+            return width == Character.BYTES ? chunk(Character.BYTES).getChar() : chunk(Integer.BYTES).getInt();
+        }
+
+        void putDouble(double value) {
+            chunk(Double.BYTES).putDouble(value);
+        }
+
+        double getDouble() {
+            return chunk(Double.BYTES).getDouble();
+        }
+
+        void putLong(long value) {
+            chunk(Long.BYTES).putLong(value);
+        }
+
+        long getLong() {
+            return chunk(Long.BYTES).getLong();
+        }
+    }
+
+    static int nodeBytes(int n) {
+        return n <= 1 << 16 ? Character.BYTES : Integer.BYTES;
+    }
+
+    /**
+     * Liest eine Checkpoint-Datei der Reihe nach, jeder Abschnitt wird erst beim Abruf abgebildet
+     */
+    static final class Reader implements AutoCloseable {
+        private final Path file;
+        private final FileChannel channel;
+        private long position;
+        private ByteBuffer fields;
+
+        private Reader(Path file) throws IOException {
+            this.file = file;
+            this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        }
+
+        /**
+         * @return feste Felder des Verfahrens, positioniert hinter dem Kopf
+         */
+        ByteBuffer fields() {
+            return fields;
+        }
+
+        Section section(long count, int width) throws IOException {
+            long bytes = count * width;
+            ByteBuffer[] chunks = new ByteBuffer[(int) Math.max(1, (bytes + CHUNK_BYTES - 1) / CHUNK_BYTES)];
+            for (int c = 0; c < chunks.length; c++) {
+                chunks[c] = map((int) Math.min(CHUNK_BYTES, bytes - (long) c * CHUNK_BYTES));
+            }
+            return new Section(chunks, width);
+        }
+
+        private ByteBuffer map(int bytes) throws IOException {
+            if (position + bytes > channel.size()) throw new IOException(file + ": checkpoint is truncated");
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, bytes).order(ByteOrder.LITTLE_ENDIAN);
+            position += bytes;
+            return buffer;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
@@ -1,45 +1,113 @@
 package naturanaloge_optimierungsverfahren.algo;
 
 import naturanaloge_optimierungsverfahren.generator.CompleteGraphGenerator;
+import naturanaloge_optimierungsverfahren.logic.BatchEvaluator;
+import naturanaloge_optimierungsverfahren.logic.CandidateLists;
+import naturanaloge_optimierungsverfahren.logic.DistanceMatrix;
+import naturanaloge_optimierungsverfahren.logic.Distances;
+import naturanaloge_optimierungsverfahren.logic.LocalSearch;
+import naturanaloge_optimierungsverfahren.logic.Seeds;
 import naturanaloge_optimierungsverfahren.logic.Tour;
 import org.graphstream.graph.Graph;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
 
-public class GeneticAlgorithms {
+public class GeneticAlgorithms implements Solver {
 
-    Graph g;
+    /**
+     * Nachkommen werden in Blöcken dieser Größe erzeugt, jeder Block mit eigenem Zufallsstrom.
+     * Die Blockeinteilung hängt nicht von der Anzahl der Threads ab, deshalb liefert ein Seed
+     * sequentiell und parallel dasselbe Ergebnis.
+     */
+    private static final int BLOCK_SIZE = 64;
+    private static final int LOCAL_SEARCH_CANDIDATES = 10;
+    /**
+     * So oft wird ein Operator wiederholt, wenn er ein Duplikat liefert. Ohne Ersatz würde die
+     * Population mit jedem verworfenen Duplikat schrumpfen.
+     */
+    private static final int DUPLICATE_ATTEMPTS = 10;
+    /** Standardgröße des Fitness-Caches als Vielfaches der Populationsgröße */
+    private static final int FITNESS_CACHE_FACTOR = 4;
+    /** seed, generation, startPopulationSize, offspringCount, Populationsgröße, Cachegröße, Länge und Hash von best */
+    private static final int CHECKPOINT_FIELD_BYTES = 48;
+
+    Distances distances;
+    /** bewertet die Rekombinationen eines Blocks gemeinsam, vektorisiert wenn möglich */
+    BatchEvaluator evaluator;
     List<Tour> population;
-    PriorityQueue<Tour> pq;
-    Random random;
+    /** beste bisher bewertete Tour, volatile für das Auslesen aus anderen Threads während der Suche */
+    volatile Tour best;
+    /** Hashes der Touren in population, Nachkommen mit bekanntem Hash werden verworfen */
+    Set<Long> populationHashes;
+    /** Länge je Tour-Hash für Rekombinationen, begrenzt, die ältesten Einträge fallen heraus */
+    Map<Long, Double> fitnessCache;
+    long seed;
+    int generation;
+    long offspringCount;
+    int startPopulationSize;
+    final ProgressFeed progress = new ProgressFeed();
+    ExecutorService executor;
+    /** von setParallelism angelegter Pool, wird beim Ersetzen und in close() heruntergefahren */
+    ExecutorService ownPool;
+    CandidateLists candidates;
+    double localSearchRate;
+    int localSearchDepth;
+    /** null = kein Checkpoint */
+    Checkpoint checkpoint;
+    /**
+     * Freie Hilfsobjekte für breed, ein Block nimmt sich eines und gibt es danach zurück. Es entstehen
+     * höchstens so viele wie Blöcke gleichzeitig laufen, freigegeben werden sie mit {@link #close()}.
+     */
+    final Queue<Scratch> scratch = new ConcurrentLinkedQueue<>();
 
     int mutationType;
     int recombinationType;
+    int selectionType;
+    int eliteCount;
     double mutationRate;
     double recombinationRate;
 
     public GeneticAlgorithms(Graph g, int populationSize, int mutationType, int recombinationType) {
-        if (mutationType >= 3) throw new IllegalArgumentException();
-        if (recombinationType >= 2) throw new IllegalArgumentException();
-        this.g = g;
-        population = new ArrayList<>();
-        pq = new PriorityQueue<>(Tour::compareTo);
-        random = new Random();
-        generateStartPopulation(populationSize);
-        this.mutationType = mutationType;
-        this.recombinationType = recombinationType;
-        this.mutationRate = 0.5;
-        this.recombinationRate = 0.5;
+        this(g, populationSize, mutationType, recombinationType, 0.5, 0.5);
     }
 
     public GeneticAlgorithms(Graph g, int populationSize, int mutationType, int recombinationType, double mutationRate,
                              double recombinationRate) {
+        this(g, populationSize, mutationType, recombinationType, mutationRate, recombinationRate, new Random().nextLong());
+    }
+
+    public GeneticAlgorithms(Graph g, int populationSize, int mutationType, int recombinationType, double mutationRate,
+                             double recombinationRate, long seed) {
+        this(new DistanceMatrix(g), populationSize, mutationType, recombinationType, mutationRate, recombinationRate, seed);
+    }
+
+    /**
+     * @param distances
+     * @param populationSize
+     * @param mutationType 0 = Inversion, 1 = Vertauschen, 2 = Verschieben
+     * @param recombinationType 0 = Order Crossover, 1 = Cycle Crossover, 2 = Partially Mapped Crossover,
+     *                          3 = Edge Recombination
+     * @param mutationRate
+     * @param recombinationRate
+     * @param seed gleicher Seed ergibt unabhängig von der Parallelität denselben Verlauf
+     */
+    public GeneticAlgorithms(Distances distances, int populationSize, int mutationType, int recombinationType,
+                             double mutationRate, double recombinationRate, long seed) {
         if (mutationType >= 3) throw new IllegalArgumentException();
-        if (recombinationType >= 2) throw new IllegalArgumentException();
-        this.g = g;
+        if (recombinationType >= 4) throw new IllegalArgumentException();
+        this.distances = distances;
+        this.evaluator = BatchEvaluator.create(distances);
         population = new ArrayList<>();
-        pq = new PriorityQueue<>(Tour::compareTo);
-        random = new Random();
+        populationHashes = new HashSet<>();
+        setFitnessCache(FITNESS_CACHE_FACTOR * populationSize);
+        this.seed = seed;
         generateStartPopulation(populationSize);
         this.mutationType = mutationType;
         this.recombinationType = recombinationType;
@@ -47,92 +115,554 @@ public class GeneticAlgorithms {
         this.mutationRate = mutationRate;
     }
 
+    /**
+     * @param selectionType 0 = Tournament Selection, 1 = Roulette Wheel Selection
+     * @param eliteCount so viele beste Touren überleben jede Selektion unabhängig vom Verfahren
+     */
+    public void setSelection(int selectionType, int eliteCount) {
+        if (selectionType < 0 || selectionType >= 2 || eliteCount < 0) throw new IllegalArgumentException();
+        this.selectionType = selectionType;
+        this.eliteCount = eliteCount;
+    }
+
+    /**
+     * Rekombinationen, deren Hash im Cache steht, werden nicht neu bewertet. Während der Erzeugung
+     * der Nachkommen wird nur gelesen, neue Einträge kommen erst beim Aufnehmen in die Population
+     * dazu, das Ergebnis hängt deshalb nicht von der Parallelität ab.
+     * @param capacity maximale Anzahl Einträge, 0 = aus
+     */
+    public void setFitnessCache(int capacity) {
+        if (capacity < 0) throw new IllegalArgumentException();
+        fitnessCache = capacity == 0 ? null : new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Double> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Erzeugt Nachkommen mit threads Worker-Threads, 1 = sequentiell im aufrufenden Thread
+     * @param threads
+     */
+    public void setParallelism(int threads) {
+        if (threads < 1) throw new IllegalArgumentException();
+        ExecutorService pool = threads == 1 ? null : new ForkJoinPool(threads);
+        setExecutor(pool);
+        ownPool = pool;
+    }
+
+    /**
+     * Erzeugt Nachkommen auf dem übergebenen Executor, null = sequentiell im aufrufenden Thread.
+     * Der Executor wird nicht heruntergefahren, ein zuvor über setParallelism angelegter Pool schon.
+     * @param executor
+     */
+    public void setExecutor(ExecutorService executor) {
+        if (ownPool != null) ownPool.shutdown();
+        ownPool = null;
+        this.executor = executor;
+    }
+
+    /**
+     * Memetischer GA: ein Anteil rate der Nachkommen wird mit 2-opt/Or-opt lokal verbessert
+     * @param rate Anteil der lokal verbesserten Nachkommen, 0 = aus
+     * @param depth höchstens so viele verbessernde Züge je Nachkomme, 0 = bis zum lokalen Optimum
+     */
+    public void setLocalSearch(double rate, int depth) {
+        if (rate < 0 || rate > 1 || depth < 0) throw new IllegalArgumentException();
+        if (rate > 0 && candidates == null) candidates = CandidateLists.build(distances, LOCAL_SEARCH_CANDIDATES);
+        this.localSearchRate = rate;
+        this.localSearchDepth = depth;
+    }
+
+    /**
+     * Schreibt alle interval Generationen und am Ende von findOptimum den Zustand nach file: Population
+     * mit Längen und Hashes, beste Tour, Fitness-Cache, Seed und Generationszähler. Der Zufallsstrom einer
+     * Generation folgt aus Seed und Generation und muss nicht gespeichert werden. Geschrieben wird
+     * asynchron, die Suche wartet nur, wenn der vorige Checkpoint noch nicht fertig ist.
+     * @param file Zieldatei, null = aus
+     * @param interval Abstand in Generationen
+     */
+    public void setCheckpoint(Path file, int interval) {
+        checkpoint = file == null ? null : new Checkpoint(file, interval);
+    }
+
+    /**
+     * Setzt den Zustand auf den eines Checkpoints, findOptimum läuft danach weiter, als wäre die Suche nie
+     * unterbrochen worden. Die Parameter (Operatoren, Raten, Selektion, Cachegröße) kommen nicht aus der
+     * Datei, sondern aus diesem Objekt, sie dürfen sich für die Fortsetzung also auch ändern.
+     * @param file mit {@link #setCheckpoint(Path, int)} geschrieben, für dieselbe Instanz
+     * @throws IOException wenn die Datei kein Checkpoint eines GA über n Knoten ist
+     */
+    public void restore(Path file) throws IOException {
+        int n = distances.size();
+        int nodeBytes = Checkpoint.nodeBytes(n);
+        try (Checkpoint.Reader reader = Checkpoint.open(file, Checkpoint.GENETIC, n, CHECKPOINT_FIELD_BYTES)) {
+            ByteBuffer fields = reader.fields();
+            long restoredSeed = fields.getLong();
+            int restoredGeneration = fields.getInt();
+            int restoredStartPopulationSize = fields.getInt();
+            long restoredOffspringCount = fields.getLong();
+            int populationSize = fields.getInt();
+            int cacheSize = fields.getInt();
+            double bestLength = fields.getDouble();
+            long bestHash = fields.getLong();
+            Checkpoint.Section bestPath = reader.section(n, nodeBytes);
+            Checkpoint.Section lengths = reader.section(populationSize, Double.BYTES);
+            Checkpoint.Section hashes = reader.section(populationSize, Long.BYTES);
+            Checkpoint.Section paths = reader.section((long) populationSize * n, nodeBytes);
+            Checkpoint.Section cacheHashes = reader.section(cacheSize, Long.BYTES);
+            Checkpoint.Section cacheLengths = reader.section(cacheSize, Double.BYTES);
+
+            List<Tour> restored = new ArrayList<>(populationSize);
+            for (int t = 0; t < populationSize; t++) {
+                restored.add(new Tour(readPath(paths, n), distances, lengths.getDouble(), hashes.getLong()));
+            }
+            best = new Tour(readPath(bestPath, n), distances, bestLength, bestHash);
+            // Liste unverändert übernehmen, nach einer Roulette-Selektion darf sie Duplikate enthalten
+            population = restored;
+            populationHashes.clear();
+            for (Tour t : restored) {
+                populationHashes.add(t.getHash());
+            }
+            if (fitnessCache != null) {
+                fitnessCache.clear();
+                for (int e = 0; e < cacheSize; e++) {
+                    fitnessCache.put(cacheHashes.getLong(), cacheLengths.getDouble());
+                }
+            }
+            seed = restoredSeed;
+            generation = restoredGeneration;
+            startPopulationSize = restoredStartPopulationSize;
+            offspringCount = restoredOffspringCount;
+        }
+    }
+
+    private static int[] readPath(Checkpoint.Section section, int n) {
+        int[] path = new int[n];
+        for (int i = 0; i < n; i++) {
+            path[i] = section.getNode();
+        }
+        return path;
+    }
+
+    /**
+     * Kopiert den Zustand in Puffer und übergibt sie dem Schreib-Thread
+     */
+    private void writeCheckpoint() {
+        int n = distances.size();
+        int nodeBytes = Checkpoint.nodeBytes(n);
+        int cacheSize = fitnessCache == null ? 0 : fitnessCache.size();
+        ByteBuffer fields = Checkpoint.fields(Checkpoint.GENETIC, n, CHECKPOINT_FIELD_BYTES)
+                .putLong(seed).putInt(generation).putInt(startPopulationSize).putLong(offspringCount)
+                .putInt(population.size()).putInt(cacheSize)
+                .putDouble(best.getPathWeight()).putLong(best.getHash());
+        Checkpoint.Section bestPath = Checkpoint.Section.allocate(n, nodeBytes);
+        Checkpoint.Section lengths = Checkpoint.Section.allocate(population.size(), Double.BYTES);
+        Checkpoint.Section hashes = Checkpoint.Section.allocate(population.size(), Long.BYTES);
+        Checkpoint.Section paths = Checkpoint.Section.allocate((long) population.size() * n, nodeBytes);
+        Checkpoint.Section cacheHashes = Checkpoint.Section.allocate(cacheSize, Long.BYTES);
+        Checkpoint.Section cacheLengths = Checkpoint.Section.allocate(cacheSize, Double.BYTES);
+        for (int node : best.getPath()) {
+            bestPath.putNode(node);
+        }
+        for (Tour t : population) {
+            lengths.putDouble(t.getPathWeight());
+            hashes.putLong(t.getHash());
+            for (int node : t.getPath()) {
+                paths.putNode(node);
+            }
+        }
+        if (fitnessCache != null) {
+            // in Einfügereihenfolge, damit nach dem Laden dieselben Einträge zuerst herausfallen
+            for (Map.Entry<Long, Double> entry : fitnessCache.entrySet()) {
+                cacheHashes.putLong(entry.getKey());
+                cacheLengths.putDouble(entry.getValue());
+            }
+        }
+        checkpoint.write(fields, bestPath, lengths, hashes, paths, cacheHashes, cacheLengths);
+    }
+
+    /**
+     * @return Anzahl abgeschlossener Generationen, nach {@link #restore(Path)} einschließlich der des Checkpoints
+     */
+    public int getGeneration() {
+        return generation;
+    }
+
     public Tour findOptimum(int generations){
-        Tour res = null;
-        for (int i = 0; i < generations; i++) {
-            //System.out.println("start with population size " + population.size());
-            //System.out.println("start selection");
-            survivalOfTheFittest();
+        return findOptimum(Termination.iterations(generations));
+    }
+
+    /**
+     * Anytime-Modus: läuft bis termination erreicht ist, die beste Tour kann währenddessen
+     * aus anderen Threads über {@link #getBest()} gelesen werden
+     * @param termination z.B. Zeitbudget und Stagnation
+     * @return beste gefundene Tour
+     */
+    public Tour findOptimum(Termination termination){
+        long start = System.nanoTime();
+        progress.start();
+        progress.publish(best, generation, startPopulationSize + offspringCount);
+        int iterations = 0;
+        int stagnation = 0;
+        while (!termination.isReached(start, iterations, stagnation, best.getPathWeight())) {
+            Tour previousBest = best;
+            SplittableRandom random = new SplittableRandom(Seeds.derive(seed, generation));
+            survivalOfTheFittest(random);
             int currentPopulationSize = population.size();
-            //System.out.println("start recombination");
-            recombination(currentPopulationSize);
-            //System.out.println("start mutation");
-            mutation(currentPopulationSize);
-            res = pq.peek();
+            recombination(currentPopulationSize, random);
+            mutation(currentPopulationSize, random);
+            generation++;
+            iterations++;
+            stagnation = best == previousBest ? stagnation + 1 : 0;
+            if (best != previousBest) progress.publish(best, generation, startPopulationSize + offspringCount);
+            if (checkpoint != null && checkpoint.isDue(generation)) writeCheckpoint();
+        }
+        if (checkpoint != null) {
+            if (iterations == 0 || !checkpoint.isDue(generation)) writeCheckpoint();
+            checkpoint.await();
+        }
+        return best;
+    }
+
+    @Override
+    public Tour solve(Termination termination) {
+        return findOptimum(termination);
+    }
+
+    /**
+     * Meldet die beste Tour beim Start und nach jeder Generation, in der sie sich verbessert hat,
+     * evaluations zählt Startpopulation und Nachkommen
+     */
+    @Override
+    public Flow.Publisher<Improvement> improvements() {
+        return progress.publisher();
+    }
+
+    @Override
+    public void close() {
+        setExecutor(null);
+        scratch.clear();
+        progress.close();
+    }
+
+    /**
+     * @return beste bisher gefundene Tour, darf auch während findOptimum aus anderen Threads aufgerufen werden
+     */
+    @Override
+    public Tour getBest() {
+        return best;
+    }
+
+    /**
+     * @param count
+     * @return die count besten Touren der aktuellen Population, aufsteigend nach Länge;
+     * nicht während findOptimum aus anderen Threads aufrufen
+     */
+    public List<Tour> getBest(int count) {
+        List<Tour> result = new ArrayList<>();
+        for (int index : bestIndices(population, count)) {
+            result.add(population.get(index));
+        }
+        result.sort(Tour::compareTo);
+        return result;
+    }
+
+    /**
+     * Nimmt Touren aus einer anderen Population auf (Migration), die Selektion der nächsten
+     * Generation entscheidet über ihren Verbleib. Touren, die schon in der Population sind, werden übersprungen.
+     * @param immigrants Touren über derselben Distanzmatrix
+     */
+    public void immigrate(Collection<Tour> immigrants) {
+        for (Tour t : immigrants) {
+            if (t.size() != distances.size()) throw new IllegalArgumentException();
         }
-        return res;
+        add(immigrants);
+    }
+
+    /**
+     * @return Anzahl aller bisher erzeugten und bewerteten Nachkommen
+     */
+    public long getOffspringCount() {
+        return offspringCount;
     }
 
     private void generateStartPopulation(int populationSize){
+        SplittableRandom random = new SplittableRandom(seed);
+        startPopulationSize = populationSize;
+        List<Tour> start = new ArrayList<>();
         for (int i = 0; i < populationSize; i++){
-            Tour t = new Tour(g);
+            start.add(new Tour(distances, random));
+        }
+        add(start);
+    }
+
+    /**
+     * Nimmt Touren in die Population auf, Duplikate (gleicher Hash) und null werden übersprungen
+     */
+    private void add(Collection<Tour> tours) {
+        for (Tour t : tours) {
+            if (t == null || !populationHashes.add(t.getHash())) continue;
             population.add(t);
-            pq.add(t);
+            if (fitnessCache != null) fitnessCache.put(t.getHash(), t.getPathWeight());
+            if (best == null || t.getPathWeight() < best.getPathWeight()) best = t;
         }
     }
 
-    private void recombination(int size){
-        List<Tour> toAdd = new ArrayList<>();
+    private void recombination(int size, SplittableRandom random){
+        List<Tour> toAdd = breed((int) Math.ceil(size * recombinationRate), random, (workspace, blockRandom, child, offspring) -> {
+            Tour t1 = population.get(blockRandom.nextInt(population.size()));
+            Tour t2 = population.get(blockRandom.nextInt(population.size()));
+            t1.crossover(recombinationType, t2, child, workspace, blockRandom);
+            long hash = Tour.calcHash(child);
+            if (populationHashes.contains(hash)) return false;
+            Double cached = fitnessCache == null ? null : fitnessCache.get(hash);
+            if (cached != null) offspring.add(new Tour(child, distances, cached, hash));
+            else offspring.addUnevaluated(child, hash);
+            return true;
+        });
+        add(toAdd);
+    }
 
-        for (int i = 0; i < size * recombinationRate; i++) {
-            Tour t1 = population.get(random.nextInt(population.size()));
-            Tour t2 = population.get(random.nextInt(population.size()));
-            Tour newTour = t1.recombination(recombinationType, t2);
-            toAdd.add(newTour);
-        }
-        //System.out.println("recombination counter: "+ ct);
-        population.addAll(toAdd);
-        pq.addAll(toAdd);
+    private void mutation(int size, SplittableRandom random){
+        List<Tour> toAdd = breed((int) Math.ceil(size * mutationRate), random, (workspace, blockRandom, child, offspring) -> {
+            Tour t1 = population.get(blockRandom.nextInt(population.size()));
+            Tour t = t1.mutation(mutationType, child, workspace, blockRandom);
+            if (populationHashes.contains(t.getHash())) return false;
+            offspring.add(t);
+            return true;
+        });
+        add(toAdd);
     }
 
-    private void mutation(int size){
-        List<Tour> toAdd = new ArrayList<>();
+    private static final class Scratch {
+        final Tour.Workspace workspace;
+        /** erst bei Bedarf angelegt, die Kandidatenlisten ändern sich nach setLocalSearch nicht mehr */
+        LocalSearch localSearch;
+        /** beim letzten Block nicht vergebenes Zielarray */
+        int[] spare;
 
-        for (int i = 0; i < size * mutationRate; i++) {
-            Tour t1 = population.get(random.nextInt(population.size()));
-            Tour newTour = t1.mutation(mutationType);
-            toAdd.add(newTour);
+        Scratch(int n) {
+            workspace = new Tour.Workspace(n);
         }
-        //System.out.println("mutation counter: " + ct);
-        population.addAll(toAdd);
-        pq.addAll(toAdd);
+    }
+
+    private interface Operator {
+        /**
+         * @param child Zielarray der Länge n, gehört bei true dem Nachkommen, bei false wird es für den nächsten
+         *              Versuch wiederverwendet
+         * @return false, wenn der Nachkomme schon in der Population ist, sonst wird er in offspring eingetragen
+         */
+        boolean apply(Tour.Workspace workspace, SplittableRandom random, int[] child, Offspring offspring);
     }
 
     /**
-     * Tournament Selection
+     * Nachkommen eines Blocks. Rekombinationen tragen nur Pfad und Hash ein, ihre Längen werden am
+     * Blockende in einem Durchgang über den {@link BatchEvaluator} berechnet.
      */
-    private void survivalOfTheFittest(){
-        Set<Tour> removalSet = new HashSet<>();
-        List<Tour> checkList = new ArrayList<>(population);
-        int halfSize = population.size() / 2;
-        //System.out.println("halfSize: " + halfSize);
-        for (int i = 0; i < halfSize; i++) {
-            int index1 = random.nextInt(checkList.size());
-            Tour t1 = checkList.get(index1);
-            checkList.remove(index1);
+    private static final class Offspring {
+        final Tour[] tours;
+        final int[][] paths;
+        final long[] hashes;
+        int count;
+
+        Offspring(int size) {
+            tours = new Tour[size];
+            paths = new int[size][];
+            hashes = new long[size];
+        }
+
+        void add(Tour t) {
+            tours[count++] = t;
+        }
+
+        void addUnevaluated(int[] path, long hash) {
+            paths[count] = path;
+            hashes[count++] = hash;
+        }
+
+        /** verworfenes Duplikat */
+        void skip() {
+            count++;
+        }
 
-            int index2 = random.nextInt(checkList.size());
-            Tour t2 = checkList.get(index2);
-            checkList.remove(index2);
+        void evaluate(BatchEvaluator evaluator, Distances distances) {
+            int[][] unevaluated = new int[count][];
+            int[] slots = new int[count];
+            int m = 0;
+            for (int i = 0; i < count; i++) {
+                if (paths[i] == null) continue;
+                unevaluated[m] = paths[i];
+                slots[m++] = i;
+            }
+            double[] lengths = new double[m];
+            evaluator.evaluate(unevaluated, m, lengths);
+            for (int j = 0; j < m; j++) {
+                int i = slots[j];
+                tours[i] = new Tour(paths[i], distances, lengths[j], hashes[i]);
+            }
+        }
+    }
+
+    /**
+     * Erzeugt count Nachkommen blockweise, die Population wird dabei nur gelesen
+     * @param count
+     * @param random Zufallsstrom der Generation, liefert per split() einen Strom je Block
+     * @param operator
+     * @return Nachkommen in Blockreihenfolge, null für verworfene Duplikate
+     */
+    private List<Tour> breed(int count, SplittableRandom random, Operator operator) {
+        Tour[] offspring = new Tour[count];
+        Blocks.run(executor, 0, count, BLOCK_SIZE, random, (from, to, blockRandom) -> {
+            Scratch s = scratch.poll();
+            if (s == null) s = new Scratch(distances.size());
+            try {
+                breedBlock(s, from, to, blockRandom, operator, offspring);
+            } finally {
+                scratch.offer(s);
+            }
+        });
+        // verworfene Duplikate sind keine erzeugten Nachkommen
+        for (Tour t : offspring) {
+            if (t != null) offspringCount++;
+        }
+        return Arrays.asList(offspring);
+    }
 
-            if (t1.getFitness() > t2.getFitness()) {
-                removalSet.add(t2);
+    /**
+     * Erzeugt die Nachkommen [from, to) nach offspring, bewertet sie gemeinsam und verbessert einen Anteil lokal
+     */
+    private void breedBlock(Scratch s, int from, int to, SplittableRandom random, Operator operator, Tour[] offspring) {
+        Offspring block = new Offspring(to - from);
+        int[] child = s.spare;
+        for (int i = from; i < to; i++) {
+            if (child == null) child = new int[distances.size()];
+            boolean produced = false;
+            for (int attempt = 0; !produced && attempt < DUPLICATE_ATTEMPTS; attempt++) {
+                produced = operator.apply(s.workspace, random, child, block);
+            }
+            if (produced) {
+                child = null;
             } else {
-                removalSet.add(t1);
+                block.skip();
+            }
+        }
+        s.spare = child;
+        block.evaluate(evaluator, distances);
+        if (localSearchRate > 0 && s.localSearch == null) s.localSearch = new LocalSearch(distances, candidates);
+        for (int i = from; i < to; i++) {
+            Tour t = block.tours[i - from];
+            if (t != null && localSearchRate > 0 && random.nextDouble() < localSearchRate) {
+                t = s.localSearch.improve(t, localSearchDepth);
             }
+            offspring[i] = t;
         }
+    }
 
-        population.removeAll(removalSet);
-        pq.removeAll(removalSet);
-        //System.out.println("population size after selection: "+ population.size());
+    /**
+     * Selektion auf Indizes in O(n): die Hälfte der Population scheidet aus, die eliteCount besten
+     * Touren bleiben immer erhalten.
+     * Tournament Selection: die übrigen Touren werden zufällig paarweise verglichen, der Sieger überlebt.
+     * Roulette Wheel Selection: Überlebende werden mit Zurücklegen proportional zur Fitness gezogen,
+     * jede Ziehung kostet über die Alias-Tabelle O(1).
+     */
+    void survivalOfTheFittest(SplittableRandom random){
+        int[] selected = selectSurvivors(population, random);
+        List<Tour> survivors = new ArrayList<>(selected.length);
+        for (int index : selected) {
+            survivors.add(population.get(index));
+        }
+        population = survivors;
+        populationHashes.clear();
+        for (Tour t : survivors) {
+            populationHashes.add(t.getHash());
+        }
+    }
+
+    /**
+     * Reine Auswahl ohne Zustandsänderung, mit selectionType und eliteCount dieses GA
+     * @param population
+     * @param random
+     * @return Indizes der Überlebenden in population, zuerst die Elite
+     */
+    int[] selectSurvivors(List<Tour> population, SplittableRandom random) {
+        int size = population.size();
+        int survivorCount = size - size / 2;
+        int[] survivors = new int[survivorCount];
+        int count = 0;
+        boolean[] elite = new boolean[size];
+        for (int index : bestIndices(population, Math.min(eliteCount, survivorCount))) {
+            elite[index] = true;
+            survivors[count++] = index;
+        }
+        int[] others = new int[size - count];
+        int otherCount = 0;
+        for (int i = 0; i < size; i++) {
+            if (!elite[i]) others[otherCount++] = i;
+        }
+        if (selectionType == 0) {
+            for (int i = otherCount - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                int tmp = others[i];
+                others[i] = others[j];
+                others[j] = tmp;
+            }
+            // ein ungerader Rest tritt ohne Gegner an
+            for (int i = 0; i < otherCount && count < survivorCount; i += 2) {
+                int a = others[i];
+                int b = i + 1 < otherCount ? others[i + 1] : a;
+                survivors[count++] = population.get(a).getFitness() >= population.get(b).getFitness() ? a : b;
+            }
+        } else if (otherCount > 0) {
+            double[] weights = new double[otherCount];
+            double sum = 0.0;
+            for (int i = 0; i < otherCount; i++) {
+                weights[i] = population.get(others[i]).getFitness();
+                sum += weights[i];
+            }
+            // nur unendlich lange Touren: gleichverteilt ziehen
+            if (!(sum > 0)) Arrays.fill(weights, 1.0);
+            AliasTable wheel = new AliasTable(weights);
+            while (count < survivorCount) {
+                survivors[count++] = others[wheel.sample(random)];
+            }
+        }
+        return count == survivorCount ? survivors : Arrays.copyOf(survivors, count);
+    }
+
+    /**
+     * Begrenzter Max-Heap über die Indizes, O(n log count)
+     * @param count
+     * @return Indizes der count kürzesten Touren der Population, ungeordnet
+     */
+    private static int[] bestIndices(List<Tour> population, int count) {
+        count = Math.min(count, population.size());
+        if (count == 0) return new int[0];
+        PriorityQueue<Integer> heap = new PriorityQueue<>(count,
+                (a, b) -> Double.compare(population.get(b).getPathWeight(), population.get(a).getPathWeight()));
+        for (int i = 0; i < population.size(); i++) {
+            if (heap.size() < count) {
+                heap.add(i);
+            } else if (population.get(i).getPathWeight() < population.get(heap.peek()).getPathWeight()) {
+                heap.poll();
+                heap.add(i);
+            }
+        }
+        int[] result = new int[count];
+        int k = 0;
+        for (int index : heap) {
+            result[k++] = index;
+        }
+        return result;
     }
 
     public static void main(String[] args) {
         Graph g = CompleteGraphGenerator.generate("g", 5, 10,20);
         GeneticAlgorithms ga = new GeneticAlgorithms(g, 3,0,0);
-        System.out.println(ga.pq.poll());
-        System.out.println(ga.pq.poll());
-        System.out.println(ga.pq.poll());
+        for (Tour t : ga.getBest(3)) {
+            System.out.println(t);
+        }
     }
 
 }
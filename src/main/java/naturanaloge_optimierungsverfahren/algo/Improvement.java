@@ -0,0 +1,15 @@
+package naturanaloge_optimierungsverfahren.algo;
+
+import naturanaloge_optimierungsverfahren.logic.Tour;
+
+/**
+ * Meldung eines {@link Solver} über eine neue beste Tour
+ * @param tour neue beste Tour
+ * @param bestLength Länge von tour
+ * @param iteration Anzahl abgeschlossener Generationen bzw. Iterationen, die letzte hat tour gefunden,
+ *                  0 = Startpopulation
+ * @param elapsedNanos Zeit seit Start von {@link Solver#solve(Termination)}
+ * @param evaluations bis dahin bewertete Touren
+ */
+public record Improvement(Tour tour, double bestLength, long iteration, long elapsedNanos, long evaluations) {
+}
@@ -0,0 +1,146 @@
+package naturanaloge_optimierungsverfahren.algo;
+
+import naturanaloge_optimierungsverfahren.logic.Distances;
+import naturanaloge_optimierungsverfahren.logic.Tour;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Inselmodell: mehrere unabhängige Populationen laufen auf eigenen Threads und tauschen
+ * in festen Abständen ihre besten Touren aus. Der Austausch läuft über lock-freie Postfächer,
+ * eine Insel wartet dabei nie auf eine andere.
+ */
+public class IslandModel {
+
+    public enum Topology {
+        /** Insel i schickt an Insel i+1 */
+        RING,
+        /** Insel i schickt an alle anderen Inseln */
+        ALL_TO_ALL
+    }
+
+    private final List<GeneticAlgorithms> islands;
+    private final List<ConcurrentLinkedQueue<Tour>> mailboxes;
+    private final Topology topology;
+    private final int migrationInterval;
+    private final int migrants;
+
+    /**
+     * @param islands Populationen über derselben Distanzmatrix, jede wird nur von ihrem eigenen Thread verwendet
+     * @param topology
+     * @param migrationInterval Generationen zwischen zwei Migrationen
+     * @param migrants Anzahl der besten Touren, die pro Migration verschickt werden
+     */
+    public IslandModel(List<GeneticAlgorithms> islands, Topology topology, int migrationInterval, int migrants) {
+        if (islands.isEmpty() || migrationInterval < 1 || migrants < 0) throw new IllegalArgumentException();
+        this.islands = List.copyOf(islands);
+        this.topology = topology;
+        this.migrationInterval = migrationInterval;
+        this.migrants = migrants;
+        mailboxes = new ArrayList<>();
+        for (int i = 0; i < islands.size(); i++) {
+            mailboxes.add(new ConcurrentLinkedQueue<>());
+        }
+    }
+
+    /**
+     * Erzeugt islandCount Inseln, die reihum alle Kombinationen aus Mutations- und Rekombinationstyp verwenden
+     * @param distances
+     * @param islandCount
+     * @param populationSize Populationsgröße je Insel
+     * @param mutationRate
+     * @param recombinationRate
+     * @param topology
+     * @param migrationInterval
+     * @param migrants
+     * @param seed
+     * @return Inselmodell
+     */
+    public static IslandModel withMixedOperators(Distances distances, int islandCount, int populationSize,
+                                                 double mutationRate, double recombinationRate, Topology topology,
+                                                 int migrationInterval, int migrants, long seed) {
+        List<GeneticAlgorithms> islands = new ArrayList<>();
+        for (int i = 0; i < islandCount; i++) {
+            int mutationType = i % 3;
+            int recombinationType = (i / 3) % 4;
+            islands.add(new GeneticAlgorithms(distances, populationSize, mutationType, recombinationType,
+                    mutationRate, recombinationRate, seed + i));
+        }
+        return new IslandModel(islands, topology, migrationInterval, migrants);
+    }
+
+    /**
+     * Lässt jede Insel generations Generationen auf einem eigenen Thread laufen
+     * @param generations
+     * @return beste Tour über alle Inseln
+     */
+    public Tour findOptimum(int generations) {
+        ExecutorService executor = Executors.newFixedThreadPool(islands.size());
+        try {
+            List<Future<Tour>> results = new ArrayList<>();
+            for (int i = 0; i < islands.size(); i++) {
+                int island = i;
+                results.add(executor.submit(() -> evolve(island, generations)));
+            }
+            Tour best = null;
+            for (Future<Tour> result : results) {
+                Tour t = result.get();
+                if (best == null || t.compareTo(best) < 0) best = t;
+            }
+            return best;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Tour evolve(int island, int generations) {
+        GeneticAlgorithms ga = islands.get(island);
+        int done = 0;
+        while (done < generations) {
+            int epoch = Math.min(migrationInterval, generations - done);
+            ga.findOptimum(epoch);
+            done += epoch;
+            if (done < generations) migrate(island, ga);
+        }
+        return ga.getBest();
+    }
+
+    private void migrate(int island, GeneticAlgorithms ga) {
+        List<Tour> emigrants = ga.getBest(migrants);
+        int k = islands.size();
+        switch (topology) {
+            case RING -> mailboxes.get((island + 1) % k).addAll(emigrants);
+            case ALL_TO_ALL -> {
+                for (int target = 0; target < k; target++) {
+                    if (target != island) mailboxes.get(target).addAll(emigrants);
+                }
+            }
+        }
+        List<Tour> immigrants = new ArrayList<>();
+        Tour t;
+        while ((t = mailboxes.get(island).poll()) != null) {
+            immigrants.add(t);
+        }
+        if (!immigrants.isEmpty()) ga.immigrate(immigrants);
+    }
+
+    /**
+     * Nur nach {@link #findOptimum(int)} aufrufen, nicht während die Inseln laufen
+     * @return beste Tour je Insel, aufsteigend nach Länge
+     */
+    public List<Tour> getIslandBests() {
+        return islands.stream().map(GeneticAlgorithms::getBest).sorted(Comparator.naturalOrder()).toList();
+    }
+}
@@ -0,0 +1,307 @@
+package naturanaloge_optimierungsverfahren.algo;
+
+import naturanaloge_optimierungsverfahren.logic.CandidateLists;
+import naturanaloge_optimierungsverfahren.logic.Distances;
+import naturanaloge_optimierungsverfahren.logic.MutableTour;
+import naturanaloge_optimierungsverfahren.logic.Tour;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Verbesserungsheuristik nach Lin-Kernighan: ausgehend von einer beliebigen Tour werden Ketten
+ * sequentieller 2-opt-Züge mit festem Startknoten t1 aufgebaut (Zugtiefe variabel bis maxDepth),
+ * übernommen wird der Präfix der Kette mit dem größten Gewinn.
+ * Die Tour liegt als Array mit Positionsindex vor ({@link MutableTour}), eine Umkehrung kostet
+ * höchstens n/2 Vertauschungen. Mit {@link #solve(Tour, int, long)} wird die Suche nach jedem lokalen
+ * Optimum durch einen Double-Bridge-Kick neu gestartet (Iterated Lin-Kernighan).
+ */
+public class LinKernighan {
+
+    private static final double EPSILON = 1e-10;
+    private static final int DEFAULT_CANDIDATES = 10;
+    /** Anzahl Alternativen für den ersten Zug einer Kette, tiefer wird gierig gewählt */
+    private static final int BREADTH = 5;
+
+    private final Distances distances;
+    private final CandidateLists candidates;
+    private final MutableTour tour;
+    private final int n;
+    private int maxDepth = 50;
+
+    private final boolean[] queued;
+    private final int[] queue;
+    private int head;
+    private int queueSize;
+
+    /** ausgeführte Züge der aktuellen Kette, je vier Knoten (a, b, c, d) für twoOptMove(a, b, c, d) */
+    private int[] journal;
+    private int journalSize;
+    /** entfernte und hinzugefügte Kanten der aktuellen Kette, je zwei Knoten */
+    private int[] removed;
+    private int removedSize;
+    private int[] added;
+    private int addedSize;
+
+    public LinKernighan(Distances distances) {
+        this(distances, CandidateLists.build(distances, DEFAULT_CANDIDATES));
+    }
+
+    public LinKernighan(Distances distances, CandidateLists candidates) {
+        if (candidates.size() != distances.size()) throw new IllegalArgumentException();
+        this.distances = distances;
+        this.candidates = candidates;
+        n = distances.size();
+        tour = new MutableTour(n);
+        queued = new boolean[n];
+        queue = new int[n];
+        setMaxDepth(maxDepth);
+    }
+
+    /**
+     * @param maxDepth maximale Anzahl 2-opt-Züge in einer Kette
+     */
+    public void setMaxDepth(int maxDepth) {
+        if (maxDepth < 1) throw new IllegalArgumentException();
+        this.maxDepth = maxDepth;
+        journal = new int[4 * maxDepth];
+        removed = new int[2 * (maxDepth + 1)];
+        added = new int[2 * maxDepth];
+    }
+
+    /**
+     * Verbessert start bis zum lokalen Optimum
+     * @param start z.B. das Ergebnis von {@link NearestInsertion#solve()}
+     * @return verbesserte Tour
+     */
+    public Tour improve(Tour start) {
+        if (n < 5) return start;
+        tour.load(start.getPath());
+        Arrays.fill(queued, false);
+        head = 0;
+        queueSize = 0;
+        for (int i = 0; i < n; i++) {
+            push(tour.at(i));
+        }
+        optimize();
+        int[] path = new int[n];
+        tour.store(path);
+        Tour result = new Tour(path, distances);
+        return result.getPathWeight() < start.getPathWeight() ? result : start;
+    }
+
+    /**
+     * Iterated Lin-Kernighan: nach jedem lokalen Optimum ein zufälliger Double-Bridge-Kick,
+     * danach wird nur um die Endpunkte der neuen Kanten weitergesucht
+     * @param start
+     * @param kicks Anzahl der Neustarts
+     * @param seed
+     * @return beste gefundene Tour
+     */
+    public Tour solve(Tour start, int kicks, long seed) {
+        Tour best = improve(start);
+        if (n < 8) return best;
+        SplittableRandom random = new SplittableRandom(seed);
+        int[] bestPath = best.getPath().clone();
+        double bestLength = best.getPathWeight();
+        int[] current = new int[n];
+        for (int kick = 0; kick < kicks; kick++) {
+            tour.store(current);
+            doubleBridge(current, random);
+            tour.load(current);
+            optimize();
+            tour.store(current);
+            double length = Tour.calcPathWeight(current, distances);
+            if (length < bestLength - EPSILON) {
+                bestLength = length;
+                System.arraycopy(current, 0, bestPath, 0, n);
+            } else {
+                tour.load(bestPath);
+            }
+        }
+        return new Tour(bestPath, distances);
+    }
+
+    /**
+     * Teilt die Tour in A B C D und setzt sie als A C B D zusammen, die Endpunkte der drei neuen
+     * Kanten werden zur Untersuchung vorgemerkt
+     */
+    private void doubleBridge(int[] path, SplittableRandom random) {
+        int[] cuts = new int[3];
+        do {
+            cuts[0] = 1 + random.nextInt(n - 1);
+            cuts[1] = 1 + random.nextInt(n - 1);
+            cuts[2] = 1 + random.nextInt(n - 1);
+            Arrays.sort(cuts);
+        } while (cuts[0] == cuts[1] || cuts[1] == cuts[2]);
+        int p1 = cuts[0], p2 = cuts[1], p3 = cuts[2];
+        int[] copy = path.clone();
+        int index = p1;
+        System.arraycopy(copy, p2, path, index, p3 - p2);
+        index += p3 - p2;
+        System.arraycopy(copy, p1, path, index, p2 - p1);
+        Arrays.fill(queued, false);
+        head = 0;
+        queueSize = 0;
+        for (int p : new int[]{p1 - 1, p1, p2 - 1, p2, p3 - 1, p3}) {
+            push(copy[p]);
+        }
+    }
+
+    private void optimize() {
+        while (queueSize > 0) {
+            int t1 = poll();
+            if (improveFrom(t1)) push(t1);
+        }
+    }
+
+    private void push(int node) {
+        if (queued[node]) return;
+        queued[node] = true;
+        int tail = head + queueSize;
+        queue[tail >= n ? tail - n : tail] = node;
+        queueSize++;
+    }
+
+    private int poll() {
+        int node = queue[head];
+        if (++head == n) head = 0;
+        queueSize--;
+        queued[node] = false;
+        return node;
+    }
+
+    private double d(int a, int b) {
+        return distances.distance(a, b);
+    }
+
+    private boolean improveFrom(int t1) {
+        for (int side = 0; side < 2; side++) {
+            int t2 = side == 0 ? tour.next(t1) : tour.prev(t1);
+            if (chain(t1, t2)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Baut eine Kette ab der Kante (t1,t2): (t1,t2) raus, (t2,t3) rein, (t3,t4) raus, die Tour wird
+     * jeweils mit (t4,t1) geschlossen und t4 ist das t2 des nächsten Zuges
+     */
+    private boolean chain(int t1, int t2) {
+        int[] alternatives = new int[BREADTH];
+        double[] scores = new double[BREADTH];
+        int count = 0;
+        double g = d(t1, t2);
+        boolean forward = tour.next(t1) == t2;
+        for (int rank = 0; rank < candidates.k(); rank++) {
+            int t3 = candidates.get(t2, rank);
+            double g1 = g - d(t2, t3);
+            if (g1 <= EPSILON) break;
+            int t4 = forward ? tour.prev(t3) : tour.next(t3);
+            if (t3 == t1 || t4 == t2) continue;
+            double score = d(t3, t4) - d(t2, t3);
+            // nach score absteigend einsortieren, nur die besten BREADTH behalten
+            if (count == BREADTH && score <= scores[BREADTH - 1]) continue;
+            int pos = count < BREADTH ? count++ : BREADTH - 1;
+            while (pos > 0 && scores[pos - 1] < score) {
+                scores[pos] = scores[pos - 1];
+                alternatives[pos] = alternatives[pos - 1];
+                pos--;
+            }
+            scores[pos] = score;
+            alternatives[pos] = t3;
+        }
+        for (int i = 0; i < count; i++) {
+            journalSize = 0;
+            removedSize = 0;
+            addedSize = 0;
+            addEdge(removed, removedSize++, t1, t2);
+            int t3 = alternatives[i];
+            // ein verworfener Versuch kann die Laufrichtung umgedreht haben
+            forward = tour.next(t1) == t2;
+            int t4 = forward ? tour.prev(t3) : tour.next(t3);
+            if (deepen(t1, t2, t3, t4, g)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Führt den ersten Zug aus und verlängert die Kette gierig
+     */
+    private boolean deepen(int t1, int t2, int t3, int t4, double g) {
+        double bestGain = EPSILON;
+        int bestMoves = 0;
+        while (true) {
+            double g1 = g - d(t2, t3);
+            move(t1, t2, t3, t4);
+            g = g1 + d(t3, t4);
+            double closeGain = g - d(t4, t1);
+            if (closeGain > bestGain) {
+                bestGain = closeGain;
+                bestMoves = journalSize;
+            }
+            if (journalSize == maxDepth) break;
+            t2 = t4;
+            boolean forward = tour.next(t1) == t2;
+            int nextT3 = -1;
+            int nextT4 = -1;
+            double bestScore = Double.NEGATIVE_INFINITY;
+            for (int rank = 0; rank < candidates.k(); rank++) {
+                int c = candidates.get(t2, rank);
+                if (g - d(t2, c) <= EPSILON) break;
+                int e = forward ? tour.prev(c) : tour.next(c);
+                if (c == t1 || e == t2) continue;
+                if (contains(added, addedSize, c, e) || contains(removed, removedSize, t2, c)) continue;
+                double score = d(c, e) - d(t2, c);
+                if (score > bestScore) {
+                    bestScore = score;
+                    nextT3 = c;
+                    nextT4 = e;
+                }
+            }
+            if (nextT3 < 0) break;
+            t3 = nextT3;
+            t4 = nextT4;
+        }
+        while (journalSize > bestMoves) {
+            undo();
+        }
+        if (bestMoves == 0) return false;
+        for (int i = 0; i < 4 * bestMoves; i++) {
+            push(journal[i]);
+        }
+        return true;
+    }
+
+    private void move(int t1, int t2, int t3, int t4) {
+        tour.twoOptMove(t1, t2, t4, t3);
+        int j = 4 * journalSize++;
+        journal[j] = t1;
+        journal[j + 1] = t2;
+        journal[j + 2] = t4;
+        journal[j + 3] = t3;
+        addEdge(added, addedSize++, t2, t3);
+        addEdge(removed, removedSize++, t3, t4);
+    }
+
+    /**
+     * Nach twoOptMove(a, b, c, d) existieren (a,c) und (b,d), twoOptMove(a, c, b, d) stellt (a,b) und (c,d) wieder her
+     */
+    private void undo() {
+        int j = 4 * --journalSize;
+        tour.twoOptMove(journal[j], journal[j + 2], journal[j + 1], journal[j + 3]);
+    }
+
+    private static void addEdge(int[] edges, int index, int a, int b) {
+        edges[2 * index] = a;
+        edges[2 * index + 1] = b;
+    }
+
+    private static boolean contains(int[] edges, int size, int a, int b) {
+        for (int i = 0; i < size; i++) {
+            int x = edges[2 * i], y = edges[2 * i + 1];
+            if ((x == a && y == b) || (x == b && y == a)) return true;
+        }
+        return false;
+    }
+}
@@ -1,75 +1,129 @@
 package naturanaloge_optimierungsverfahren.algo;
 
+import naturanaloge_optimierungsverfahren.logic.DistanceMatrix;
+import naturanaloge_optimierungsverfahren.logic.Distances;
 import naturanaloge_optimierungsverfahren.logic.Tour;
-import org.graphstream.graph.Edge;
 import org.graphstream.graph.Graph;
-import org.graphstream.graph.Node;
 
-import java.util.*;
+import java.util.concurrent.Flow;
 
 /**
  * Findet auch eine optimale Lösung, wobei hier ohne genetische Algorithmen gearbeitet wird
- * Nearest Insertion Algorithm
+ * Nearest Insertion Algorithm in O(n^2): für jeden Knoten außerhalb der Tour wird die Distanz
+ * zur Tour mitgeführt und nach jedem Einfügen aktualisiert, die Einfügestelle ergibt sich aus der
+ * Längenänderung d(a,x) + d(x,b) - d(a,b) an jeder Kante (a,b) der Tour
  * Resultat besser als das doppelte vom optimalen Minimum
  */
-public class NearestInsertion {
+public class NearestInsertion implements Solver {
 
-    Graph g;
+    Distances distances;
+    volatile Tour best;
+    final ProgressFeed progress = new ProgressFeed();
     public NearestInsertion(Graph g){
-        this.g = g;
+        this(new DistanceMatrix(g));
+    }
+
+    /**
+     * @param distances mindestens 2 Knoten
+     */
+    public NearestInsertion(Distances distances){
+        if (distances.size() < 2) throw new IllegalArgumentException();
+        this.distances = distances;
+    }
+
+    /**
+     * Konstruktives Verfahren, termination wird ignoriert und genau eine Verbesserung gemeldet
+     */
+    @Override
+    public Tour solve(Termination termination) {
+        progress.start();
+        Tour tour = solve();
+        progress.publish(tour, 0, 1);
+        return tour;
     }
 
     public Tour solve(){
-        List<Node> visited = new ArrayList<>();
-        Edge shortest = null;
-        Optional<Edge> opt = g.edges().min(Comparator.comparingDouble(edge -> Double.parseDouble(String.valueOf(edge.getAttribute("weight")))));
-        if (opt.isPresent()) {
-            shortest = opt.get();
+        int n = distances.size();
+        int[] path = new int[n];
+        boolean[] inTour = new boolean[n];
+        double[] distanceToTour = new double[n];
+
+        // kürzeste Kante als Start, ein Durchlauf über alle Paare
+        int first = 0;
+        int second = 1;
+        double shortest = distances.distance(0, 1);
+        for (int a = 0; a < n; a++) {
+            for (int b = a + 1; b < n; b++) {
+                double d = distances.distance(a, b);
+                if (d < shortest) {
+                    shortest = d;
+                    first = a;
+                    second = b;
+                }
+            }
+        }
+        path[0] = first;
+        path[1] = second;
+        int tourSize = 2;
+        inTour[first] = true;
+        inTour[second] = true;
+        for (int node = 0; node < n; node++) {
+            distanceToTour[node] = Math.min(distances.distance(node, first), distances.distance(node, second));
         }
-        assert shortest != null;
-        visited.add(shortest.getSourceNode());
-        visited.add(shortest.getTargetNode());
-        Node[] currentPath = new Node[]{shortest.getSourceNode(), shortest.getTargetNode(), shortest.getSourceNode()};
-        for (int i = 0; i < g.getNodeCount()-2; i++) {
-            PriorityQueue<Edge> pq = new PriorityQueue<>(Comparator.comparingDouble(edge -> Double.parseDouble(String.valueOf(edge.getAttribute("weight")))));
-            for (Node n : visited) {
-                pq.addAll(n.edges().toList());
+
+        while (tourSize < n) {
+            int toAdd = -1;
+            for (int node = 0; node < n; node++) {
+                if (!inTour[node] && (toAdd < 0 || distanceToTour[node] < distanceToTour[toAdd])) toAdd = node;
             }
-            Edge currentShortest = pq.poll();
-            while(visited.contains(currentShortest.getSourceNode()) && visited.contains(currentShortest.getTargetNode())) {
-                currentShortest = pq.poll();
+            int position = cheapestPosition(toAdd, path, tourSize);
+            System.arraycopy(path, position, path, position + 1, tourSize - position);
+            path[position] = toAdd;
+            tourSize++;
+            inTour[toAdd] = true;
+            for (int node = 0; node < n; node++) {
+                if (!inTour[node]) distanceToTour[node] = Math.min(distanceToTour[node], distances.distance(node, toAdd));
             }
-            Node toAdd = visited.contains(currentShortest.getSourceNode()) ? currentShortest.getTargetNode() : currentShortest.getSourceNode();
-            currentPath = giveBackShortestPath(toAdd, currentPath);
-            visited.add(toAdd);
         }
-        return new Tour(currentPath);
+        best = new Tour(path, distances);
+        return best;
     }
 
-    public Node[] giveBackShortestPath(Node newNode, Node[] tour){
-        Map<Node[], Double> weightMap = new HashMap<>();
-        for (int i = 1; i < tour.length; i++) {
-            Node[] newPath = new Node[tour.length+1];
-            insertNewNodeInBetweenAt(i, newPath, tour, newNode);
-            weightMap.put(newPath, countUpPathWeight(newPath));
-        }
-        Optional<Map.Entry<Node[], Double>> entryWithMinValue = weightMap.entrySet().stream()
-                .min(Map.Entry.comparingByValue());
+    @Override
+    public Tour getBest() {
+        return best;
+    }
 
-        return entryWithMinValue.map(Map.Entry::getKey).orElse(null);
+    @Override
+    public Flow.Publisher<Improvement> improvements() {
+        return progress.publisher();
     }
 
-    private void insertNewNodeInBetweenAt(int i, Node[] newPath, Node[] tour, Node newNode){
-        if (i >= 0) System.arraycopy(tour, 0, newPath, 0, i);
-        newPath[i] = newNode;
-        if (tour.length - i >= 0) System.arraycopy(tour, i, newPath, i + 1, tour.length - i);
+    @Override
+    public void close() {
+        progress.close();
     }
 
-    public double countUpPathWeight(Node[] path){
-        double weight = 0;
-        for (int i = 1; i < path.length; i++) {
-            weight += Double.parseDouble(String.valueOf(path[i].getEdgeBetween(path[i-1]).getAttribute("weight")));
+    /**
+     * @param newNode
+     * @param path
+     * @param tourSize Anzahl der Knoten in path, die Kante path[tourSize-1] - path[0] schließt die Tour
+     * @return Index, an dem newNode eingefügt die Tour am wenigsten verlängert
+     */
+    private int cheapestPosition(int newNode, int[] path, int tourSize) {
+        int best = tourSize; // zwischen letztem und erstem Knoten
+        double bestCost = insertionCost(path[tourSize - 1], newNode, path[0]);
+        for (int i = 1; i < tourSize; i++) {
+            double cost = insertionCost(path[i - 1], newNode, path[i]);
+            if (cost < bestCost) {
+                bestCost = cost;
+                best = i;
+            }
         }
-        return weight;
+        return best;
+    }
+
+    private double insertionCost(int a, int newNode, int b) {
+        return distances.distance(a, newNode) + distances.distance(newNode, b) - distances.distance(a, b);
     }
 }
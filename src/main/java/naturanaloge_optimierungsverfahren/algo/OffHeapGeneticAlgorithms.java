@@ -0,0 +1,327 @@
+package naturanaloge_optimierungsverfahren.algo;
+
+import naturanaloge_optimierungsverfahren.logic.BatchEvaluator;
+import naturanaloge_optimierungsverfahren.logic.Distances;
+import naturanaloge_optimierungsverfahren.logic.Seeds;
+import naturanaloge_optimierungsverfahren.logic.Tour;
+
+import java.util.Queue;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Genetischer Algorithmus für sehr große Populationen (10^6 Individuen und mehr) auf einem
+ * {@link PopulationStore}: Eltern und Nachkommen sind Plätze im Store, Tour-Objekte entstehen nur für
+ * die beste Tour. Generationenmodell: die eliteCount besten Touren werden übernommen, jeder weitere Platz
+ * der nächsten Generation bekommt einen Nachkommen zweier per Binärturnier gewählter Eltern
+ * (Rekombination mit recombinationRate, sonst Kopie des ersten Elternteils, danach Mutation mit
+ * mutationRate). Anders als in {@link GeneticAlgorithms} werden Duplikate nicht verworfen.
+ * <p>
+ * Die Plätze werden in Blöcken mit eigenem Zufallsstrom gefüllt, jeder laufende Block hat eigene Hilfsarrays,
+ * neu rekombinierte Touren eines Blocks werden gemeinsam über den {@link BatchEvaluator} bewertet.
+ */
+public class OffHeapGeneticAlgorithms implements Solver {
+
+    /** Plätze je Block, zugleich die Größe eines Bewertungsdurchgangs */
+    private static final int BLOCK_SIZE = 256;
+
+    private final Distances distances;
+    private final BatchEvaluator evaluator;
+    private final PopulationStore store;
+    private final int populationSize;
+    private final int mutationType;
+    private final int recombinationType;
+    private final double mutationRate;
+    private final double recombinationRate;
+    private final long seed;
+    private int eliteCount = 1;
+    private int generation;
+    private long offspringCount;
+    private ExecutorService executor;
+    /** von setParallelism angelegter Pool, wird beim Ersetzen und in close() heruntergefahren */
+    private ExecutorService ownPool;
+    /**
+     * Freie Hilfsarrays, ein Block nimmt sich einen Satz und gibt ihn danach zurück. Es entstehen höchstens
+     * so viele wie Blöcke gleichzeitig laufen, sie gehören dem GA und nicht den Threads eines fremden
+     * Executors und werden mit {@link #close()} freigegeben.
+     */
+    private final Queue<Scratch> scratch = new ConcurrentLinkedQueue<>();
+    /** Plätze der eliteCount besten Touren der aktuellen Generation, aufsteigend nach Länge */
+    private int[] elite;
+    private volatile Tour best;
+    private final ProgressFeed progress = new ProgressFeed();
+
+    private static final class Scratch {
+        final Tour.Workspace workspace;
+        final int[] parent1;
+        final int[] parent2;
+        final int[][] children;
+        final double[] lengths;
+        final long[] hashes;
+        /** true, wenn Länge und Hash des Nachkommen noch berechnet werden müssen */
+        final boolean[] unevaluated;
+        final int[][] batch;
+        final int[] batchSlots;
+        final double[] batchLengths;
+
+        Scratch(int n) {
+            workspace = new Tour.Workspace(n);
+            parent1 = new int[n];
+            parent2 = new int[n];
+            children = new int[BLOCK_SIZE][n];
+            lengths = new double[BLOCK_SIZE];
+            hashes = new long[BLOCK_SIZE];
+            unevaluated = new boolean[BLOCK_SIZE];
+            batch = new int[BLOCK_SIZE][];
+            batchSlots = new int[BLOCK_SIZE];
+            batchLengths = new double[BLOCK_SIZE];
+        }
+    }
+
+    /**
+     * @param distances
+     * @param populationSize Anzahl Plätze je Generation
+     * @param mutationType 0 = Inversion, 1 = Vertauschen, 2 = Verschieben
+     * @param recombinationType 0 = Order, 1 = Cycle, 2 = Partially Mapped, 3 = Edge Recombination
+     * @param mutationRate
+     * @param recombinationRate
+     * @param seed gleicher Seed ergibt unabhängig von der Parallelität denselben Verlauf
+     */
+    public OffHeapGeneticAlgorithms(Distances distances, int populationSize, int mutationType, int recombinationType,
+                                    double mutationRate, double recombinationRate, long seed) {
+        if (populationSize < 2 || mutationType >= 3 || recombinationType >= 4) throw new IllegalArgumentException();
+        this.distances = distances;
+        this.evaluator = BatchEvaluator.create(distances);
+        this.store = new PopulationStore(populationSize, distances.size());
+        this.populationSize = populationSize;
+        this.mutationType = mutationType;
+        this.recombinationType = recombinationType;
+        this.mutationRate = mutationRate;
+        this.recombinationRate = recombinationRate;
+        this.seed = seed;
+        generateStartPopulation();
+    }
+
+    /**
+     * @param eliteCount so viele beste Touren gehen unverändert in die nächste Generation
+     */
+    public void setEliteCount(int eliteCount) {
+        if (eliteCount < 0 || eliteCount >= populationSize) throw new IllegalArgumentException();
+        this.eliteCount = eliteCount;
+        elite = bestSlots(eliteCount);
+    }
+
+    /**
+     * Füllt die Plätze mit threads Worker-Threads, 1 = sequentiell im aufrufenden Thread
+     * @param threads
+     */
+    public void setParallelism(int threads) {
+        if (threads < 1) throw new IllegalArgumentException();
+        ExecutorService pool = threads == 1 ? null : new ForkJoinPool(threads);
+        setExecutor(pool);
+        ownPool = pool;
+    }
+
+    /**
+     * Füllt die Plätze auf dem übergebenen Executor, null = sequentiell im aufrufenden Thread.
+     * Der Executor wird nicht heruntergefahren, ein zuvor über setParallelism angelegter Pool schon.
+     * @param executor
+     */
+    public void setExecutor(ExecutorService executor) {
+        if (ownPool != null) ownPool.shutdown();
+        ownPool = null;
+        this.executor = executor;
+    }
+
+    public Tour findOptimum(int generations) {
+        return solve(Termination.iterations(generations));
+    }
+
+    @Override
+    public Tour solve(Termination termination) {
+        long start = System.nanoTime();
+        progress.start();
+        progress.publish(best, generation, populationSize + offspringCount);
+        int iterations = 0;
+        int stagnation = 0;
+        while (!termination.isReached(start, iterations, stagnation, best.getPathWeight())) {
+            Tour previousBest = best;
+            nextGeneration(new SplittableRandom(Seeds.derive(seed, generation)));
+            generation++;
+            iterations++;
+            stagnation = best == previousBest ? stagnation + 1 : 0;
+            if (best != previousBest) progress.publish(best, generation, populationSize + offspringCount);
+        }
+        return best;
+    }
+
+    @Override
+    public Tour getBest() {
+        return best;
+    }
+
+    @Override
+    public Flow.Publisher<Improvement> improvements() {
+        return progress.publisher();
+    }
+
+    @Override
+    public void close() {
+        setExecutor(null);
+        scratch.clear();
+        progress.close();
+    }
+
+    /**
+     * @return Anzahl aller bisher erzeugten Nachkommen
+     */
+    public long getOffspringCount() {
+        return offspringCount;
+    }
+
+    private void generateStartPopulation() {
+        SplittableRandom random = new SplittableRandom(seed);
+        fill(0, random, (s, blockRandom, from, to) -> {
+            for (int slot = from; slot < to; slot++) {
+                int[] path = s.children[slot - from];
+                for (int i = 0; i < path.length; i++) {
+                    path[i] = i;
+                }
+                for (int i = path.length - 1; i > 0; i--) {
+                    int j = blockRandom.nextInt(i + 1);
+                    int temp = path[i];
+                    path[i] = path[j];
+                    path[j] = temp;
+                }
+                s.unevaluated[slot - from] = true;
+            }
+        });
+        store.swap();
+        elite = bestSlots(eliteCount);
+        updateBest();
+    }
+
+    private void nextGeneration(SplittableRandom random) {
+        for (int e = 0; e < elite.length; e++) {
+            store.copy(elite[e], e);
+        }
+        fill(elite.length, random, (s, blockRandom, from, to) -> {
+            for (int slot = from; slot < to; slot++) {
+                int i = slot - from;
+                int[] child = s.children[i];
+                int first = tournament(blockRandom);
+                store.read(first, s.parent1);
+                if (blockRandom.nextDouble() < recombinationRate) {
+                    store.read(tournament(blockRandom), s.parent2);
+                    Tour.crossover(recombinationType, s.parent1, s.parent2, child, s.workspace, blockRandom);
+                    s.unevaluated[i] = true;
+                } else {
+                    System.arraycopy(s.parent1, 0, child, 0, child.length);
+                    s.lengths[i] = store.length(first);
+                    s.hashes[i] = store.hash(first);
+                    s.unevaluated[i] = false;
+                }
+                if (blockRandom.nextDouble() < mutationRate) {
+                    System.arraycopy(child, 0, s.parent1, 0, child.length);
+                    Tour.mutate(mutationType, s.parent1, child, s.workspace, blockRandom);
+                    if (!s.unevaluated[i]) {
+                        s.lengths[i] += s.workspace.lengthDelta(distances);
+                        s.hashes[i] += s.workspace.hashDelta();
+                    }
+                }
+            }
+        });
+        offspringCount += populationSize - elite.length;
+        store.swap();
+        elite = bestSlots(eliteCount);
+        updateBest();
+    }
+
+    private interface Block {
+        /** schreibt die Touren der Plätze [from, to) nach scratch.children, Index slot - from */
+        void fill(Scratch scratch, SplittableRandom random, int from, int to);
+    }
+
+    /**
+     * Füllt die Plätze [first, populationSize) der nächsten Generation blockweise
+     * @param random liefert per split() einen Strom je Block
+     */
+    private void fill(int first, SplittableRandom random, Block block) {
+        Blocks.run(executor, first, populationSize, BLOCK_SIZE, random, (from, to, blockRandom) -> {
+            Scratch s = scratch.poll();
+            if (s == null) s = new Scratch(distances.size());
+            try {
+                block.fill(s, blockRandom, from, to);
+                write(s, from, to);
+            } finally {
+                scratch.offer(s);
+            }
+        });
+    }
+
+    /**
+     * Bewertet die noch offenen Nachkommen des Blocks in einem Durchgang und schreibt alle in den Store
+     */
+    private void write(Scratch s, int from, int to) {
+        int count = 0;
+        for (int i = 0; i < to - from; i++) {
+            if (!s.unevaluated[i]) continue;
+            s.batch[count] = s.children[i];
+            s.batchSlots[count++] = i;
+        }
+        evaluator.evaluate(s.batch, count, s.batchLengths);
+        for (int b = 0; b < count; b++) {
+            int i = s.batchSlots[b];
+            s.lengths[i] = s.batchLengths[b];
+            s.hashes[i] = Tour.calcHash(s.children[i]);
+        }
+        for (int i = 0; i < to - from; i++) {
+            store.write(from + i, s.children[i], s.lengths[i], s.hashes[i]);
+        }
+    }
+
+    /**
+     * Binärturnier: die kürzere von zwei zufälligen Touren der aktuellen Generation
+     */
+    private int tournament(SplittableRandom random) {
+        int a = random.nextInt(populationSize);
+        int b = random.nextInt(populationSize);
+        return store.length(b) < store.length(a) ? b : a;
+    }
+
+    /**
+     * @return Plätze der count kürzesten Touren der aktuellen Generation, aufsteigend nach Länge, O(n·count)
+     */
+    private int[] bestSlots(int count) {
+        int[] slots = new int[count];
+        double[] lengths = new double[count];
+        int found = 0;
+        for (int slot = 0; slot < populationSize; slot++) {
+            double length = store.length(slot);
+            if (found == count && (count == 0 || length >= lengths[count - 1])) continue;
+            int pos = found < count ? found++ : count - 1;
+            while (pos > 0 && lengths[pos - 1] > length) {
+                lengths[pos] = lengths[pos - 1];
+                slots[pos] = slots[pos - 1];
+                pos--;
+            }
+            lengths[pos] = length;
+            slots[pos] = slot;
+        }
+        return slots;
+    }
+
+    /**
+     * Erzeugt nur dann ein Tour-Objekt, wenn die Generation eine kürzere Tour enthält
+     */
+    private void updateBest() {
+        int slot = elite.length > 0 ? elite[0] : bestSlots(1)[0];
+        if (best != null && store.length(slot) >= best.getPathWeight()) return;
+        int[] path = new int[store.width()];
+        store.read(slot, path);
+        best = new Tour(path, distances, store.length(slot), store.hash(slot));
+    }
+}
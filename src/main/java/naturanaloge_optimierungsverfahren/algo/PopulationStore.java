@@ -0,0 +1,118 @@
+package naturanaloge_optimierungsverfahren.algo;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+
+/**
+ * Population fester Größe außerhalb des Heaps: jede Tour ist eine Zeile aus n ints, dazu Länge und
+ * Hash je Platz in parallelen Spalten. Es gibt zwei Generationen, gelesen wird aus der aktuellen,
+ * geschrieben in die nächste, {@link #swap()} tauscht sie. Touren werden nur über ihren Platz
+ * angesprochen, pro Individuum entsteht kein Objekt, der Garbage Collector sieht nur die Puffer.
+ * <p>
+ * Die Zeilen liegen in Direct Buffers zu höchstens 1 GB, der Speicher zählt gegen
+ * -XX:MaxDirectMemorySize (Standard: -Xmx) und wird mit dem Store freigegeben.
+ * Verschiedene Plätze dürfen von mehreren Threads gleichzeitig gelesen und geschrieben werden.
+ */
+public class PopulationStore {
+
+    private static final int MAX_CHUNK_BYTES = 1 << 30;
+
+    private final int capacity;
+    private final int width;
+    private final int rowsPerChunk;
+    private Generation current;
+    private Generation next;
+
+    private static final class Generation {
+        final IntBuffer[] paths;
+        final DoubleBuffer lengths;
+        final LongBuffer hashes;
+
+        Generation(int capacity, int width, int rowsPerChunk) {
+            int chunks = (capacity + rowsPerChunk - 1) / rowsPerChunk;
+            paths = new IntBuffer[chunks];
+            for (int c = 0; c < chunks; c++) {
+                int rows = Math.min(rowsPerChunk, capacity - c * rowsPerChunk);
+                paths[c] = direct((long) rows * width * Integer.BYTES).asIntBuffer();
+            }
+            lengths = direct((long) capacity * Double.BYTES).asDoubleBuffer();
+            hashes = direct((long) capacity * Long.BYTES).asLongBuffer();
+        }
+
+        private static ByteBuffer direct(long bytes) {
+            return ByteBuffer.allocateDirect((int) bytes).order(ByteOrder.nativeOrder());
+        }
+    }
+
+    /**
+     * @param capacity Anzahl Plätze je Generation
+     * @param width Anzahl Knoten n je Tour
+     */
+    public PopulationStore(int capacity, int width) {
+        if (capacity < 1 || width < 1 || (long) capacity * Long.BYTES > MAX_CHUNK_BYTES
+                || (long) width * Integer.BYTES > MAX_CHUNK_BYTES) {
+            throw new IllegalArgumentException();
+        }
+        this.capacity = capacity;
+        this.width = width;
+        this.rowsPerChunk = MAX_CHUNK_BYTES / (width * Integer.BYTES);
+        current = new Generation(capacity, width, rowsPerChunk);
+        next = new Generation(capacity, width, rowsPerChunk);
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public int width() {
+        return width;
+    }
+
+    /**
+     * Kopiert die Tour auf Platz slot der aktuellen Generation nach path
+     */
+    public void read(int slot, int[] path) {
+        current.paths[slot / rowsPerChunk].get(slot % rowsPerChunk * width, path, 0, width);
+    }
+
+    public double length(int slot) {
+        return current.lengths.get(slot);
+    }
+
+    public long hash(int slot) {
+        return current.hashes.get(slot);
+    }
+
+    /**
+     * Schreibt eine Tour auf Platz slot der nächsten Generation
+     */
+    public void write(int slot, int[] path, double length, long hash) {
+        next.paths[slot / rowsPerChunk].put(slot % rowsPerChunk * width, path, 0, width);
+        next.lengths.put(slot, length);
+        next.hashes.put(slot, hash);
+    }
+
+    /**
+     * Übernimmt Platz from der aktuellen Generation unverändert auf Platz to der nächsten
+     */
+    public void copy(int from, int to) {
+        IntBuffer source = current.paths[from / rowsPerChunk];
+        IntBuffer target = next.paths[to / rowsPerChunk];
+        int offset = from % rowsPerChunk * width;
+        target.put(to % rowsPerChunk * width, source, offset, width);
+        next.lengths.put(to, current.lengths.get(from));
+        next.hashes.put(to, current.hashes.get(from));
+    }
+
+    /**
+     * Die nächste Generation wird zur aktuellen, die bisherige wird überschrieben
+     */
+    public void swap() {
+        Generation previous = current;
+        current = next;
+        next = previous;
+    }
+}
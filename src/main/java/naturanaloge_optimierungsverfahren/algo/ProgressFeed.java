@@ -0,0 +1,39 @@
+package naturanaloge_optimierungsverfahren.algo;
+
+import naturanaloge_optimierungsverfahren.logic.Tour;
+
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+
+/**
+ * Verteilt Verbesserungen eines Solvers. Zugestellt wird asynchron im gemeinsamen ForkJoinPool,
+ * ist der Puffer eines Abonnenten voll, wird die Meldung für ihn verworfen statt zu warten.
+ */
+class ProgressFeed implements AutoCloseable {
+
+    private final SubmissionPublisher<Improvement> publisher = new SubmissionPublisher<>();
+    private long startNanos;
+
+    /**
+     * Setzt den Zeitpunkt, ab dem elapsedNanos gemessen wird
+     */
+    void start() {
+        startNanos = System.nanoTime();
+    }
+
+    void publish(Tour best, long iteration, long evaluations) {
+        if (!publisher.hasSubscribers() || publisher.isClosed()) return;
+        Improvement improvement = new Improvement(best, best.getPathWeight(), iteration,
+                System.nanoTime() - startNanos, evaluations);
+        publisher.offer(improvement, (subscriber, dropped) -> false);
+    }
+
+    Flow.Publisher<Improvement> publisher() {
+        return publisher;
+    }
+
+    @Override
+    public void close() {
+        publisher.close();
+    }
+}
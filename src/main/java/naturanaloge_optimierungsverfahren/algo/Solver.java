@@ -0,0 +1,35 @@
+package naturanaloge_optimierungsverfahren.algo;
+
+import naturanaloge_optimierungsverfahren.logic.Tour;
+
+import java.util.concurrent.Flow;
+
+/**
+ * Gemeinsame Schnittstelle der Verfahren, damit sie z.B. mit demselben Zeitbudget gegeneinander
+ * antreten können. Verbesserungen werden über {@link #improvements()} gemeldet, langsame Abnehmer
+ * bremsen die Suche nicht, ihnen entgehen höchstens Meldungen.
+ */
+public interface Solver extends AutoCloseable {
+
+    /**
+     * @param termination Abbruchbedingung, konstruktive Verfahren ignorieren sie
+     * @return beste gefundene Tour
+     */
+    Tour solve(Termination termination);
+
+    /**
+     * @return beste bisher gefundene Tour oder null, darf während solve aus anderen Threads aufgerufen werden
+     */
+    Tour getBest();
+
+    /**
+     * @return Strom der Verbesserungen, bleibt über mehrere Aufrufe von solve offen
+     */
+    Flow.Publisher<Improvement> improvements();
+
+    /**
+     * Beendet den Strom der Verbesserungen, die Abonnenten erhalten onComplete
+     */
+    @Override
+    void close();
+}
@@ -0,0 +1,75 @@
+package naturanaloge_optimierungsverfahren.algo;
+
+import java.time.Duration;
+
+/**
+ * Abbruchbedingung für die iterativen Verfahren: Zeitbudget, Ziellänge, Anzahl Iterationen ohne
+ * Verbesserung und Höchstzahl an Iterationen, es gilt die zuerst erreichte.
+ * Geprüft wird jeweils nach einer vollständigen Generation bzw. Iteration.
+ */
+public class Termination {
+
+    private long timeLimitNanos = Long.MAX_VALUE;
+    private double targetLength = Double.NEGATIVE_INFINITY;
+    private int maxStagnation = Integer.MAX_VALUE;
+    private int maxIterations = Integer.MAX_VALUE;
+
+    /**
+     * @param generations
+     * @return Abbruch nach genau generations Iterationen
+     */
+    public static Termination iterations(int generations) {
+        return new Termination().withMaxIterations(generations);
+    }
+
+    /**
+     * @param timeLimit Zeitbudget ab Start des Verfahrens
+     * @return Abbruch nach Ablauf von timeLimit
+     */
+    public static Termination timeLimit(Duration timeLimit) {
+        return new Termination().withTimeLimit(timeLimit);
+    }
+
+    public Termination withTimeLimit(Duration timeLimit) {
+        if (timeLimit.isNegative()) throw new IllegalArgumentException();
+        timeLimitNanos = timeLimit.toNanos();
+        return this;
+    }
+
+    /**
+     * @param targetLength Abbruch, sobald eine Tour höchstens so lang ist
+     */
+    public Termination withTargetLength(double targetLength) {
+        this.targetLength = targetLength;
+        return this;
+    }
+
+    /**
+     * @param iterations Abbruch nach so vielen Iterationen in Folge ohne neue beste Tour
+     */
+    public Termination withStagnation(int iterations) {
+        if (iterations < 1) throw new IllegalArgumentException();
+        maxStagnation = iterations;
+        return this;
+    }
+
+    public Termination withMaxIterations(int iterations) {
+        if (iterations < 0) throw new IllegalArgumentException();
+        maxIterations = iterations;
+        return this;
+    }
+
+    /**
+     * @param startNanos System.nanoTime() beim Start
+     * @param iterations bisher abgeschlossene Iterationen
+     * @param stagnation Iterationen seit der letzten Verbesserung
+     * @param bestLength Länge der besten bisher gefundenen Tour
+     * @return true, wenn das Verfahren aufhören soll
+     */
+    public boolean isReached(long startNanos, int iterations, int stagnation, double bestLength) {
+        return iterations >= maxIterations
+                || stagnation >= maxStagnation
+                || bestLength <= targetLength
+                || System.nanoTime() - startNanos >= timeLimitNanos;
+    }
+}
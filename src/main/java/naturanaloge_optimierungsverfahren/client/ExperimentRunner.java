@@ -0,0 +1,473 @@
+package naturanaloge_optimierungsverfahren.client;
+
+import naturanaloge_optimierungsverfahren.algo.AntColonyOptimization;
+import naturanaloge_optimierungsverfahren.algo.GeneticAlgorithms;
+import naturanaloge_optimierungsverfahren.algo.NearestInsertion;
+import naturanaloge_optimierungsverfahren.algo.OffHeapGeneticAlgorithms;
+import naturanaloge_optimierungsverfahren.algo.Solver;
+import naturanaloge_optimierungsverfahren.algo.Termination;
+import naturanaloge_optimierungsverfahren.generator.RandomInstance;
+import naturanaloge_optimierungsverfahren.generator.TsplibInstance;
+import naturanaloge_optimierungsverfahren.generator.TsplibReader;
+import naturanaloge_optimierungsverfahren.logic.Distances;
+import naturanaloge_optimierungsverfahren.logic.Seeds;
+import naturanaloge_optimierungsverfahren.logic.Tour;
+import naturanaloge_optimierungsverfahren.logic.TriangularDistances;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+/**
+ * Führt ein deklarativ beschriebenes Experiment aus. Die Gitterdatei enthält Zeilen der Form
+ * {@code schlüssel = wert1, wert2}, jede Kombination der Werte ist eine Konfiguration. Schlüssel mit
+ * Präfix {@code GA.}, {@code OffHeapGA.}, {@code ACO.} oder {@code NI.} gelten nur für dieses Verfahren.
+ * Steuerschlüssel: output (CSV-Datei), seed, threads, instances (Instanzen je Konfiguration), runs (Läufe je Instanz).
+ * Statt zufälliger Instanzen (nodes, minWeight, maxWeight) können mit tsplib Dateipfade angegeben werden,
+ * liegt daneben eine .opt.tour-Datei, wird deren Länge als Optimum mit ausgegeben. distanceStorage
+ * (matrix, double, float, quantized) wählt die Speicherung der Distanzen, siehe {@link TriangularDistances}.
+ * Mit checkpoints (Verzeichnis) schreiben GA und ACO alle checkpointInterval Iterationen (Standard 100) ihren
+ * Zustand, ein abgebrochener Lauf wird beim Neustart dort fortgesetzt, Time in ns zählt dann nur den
+ * fortgesetzten Teil. Nach dem Eintrag in die CSV wird der Checkpoint gelöscht.
+ * <p>
+ * Jeder Lauf bekommt einen aus seed und seinem Schlüssel abgeleiteten Seed, der mit ausgegeben wird.
+ * Die Läufe werden auf einem Work-Stealing-Pool ausgeführt und sofort nach Ende in die CSV geschrieben.
+ * Beim Neustart werden Läufe, deren Schlüssel schon in der CSV steht, übersprungen.
+ * Beispiel: experiments/operators.grid
+ */
+public class ExperimentRunner {
+
+    private static final Set<String> CONTROL_KEYS = Set.of("output", "seed", "threads", "instances", "runs",
+            "checkpoints", "checkpointInterval");
+    private static final String SEPARATOR = ";";
+
+    private final Map<String, List<String>> grid;
+    private final Path output;
+    private final long seed;
+    private final int threads;
+    private final int instances;
+    private final int runs;
+    /** null = keine Checkpoints */
+    private final Path checkpoints;
+    private final int checkpointInterval;
+    /** Instanzen und Optima werden außerhalb der Map berechnet, damit kein Lauf an einer Bin-Sperre wartet */
+    private final Map<String, CompletableFuture<TsplibInstance>> tsplibCache = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<Distances>> instanceCache = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<String>> optimumCache = new ConcurrentHashMap<>();
+
+    /**
+     * @param gridFile Gitterdatei, relative Pfade für output beziehen sich auf das Arbeitsverzeichnis
+     * @throws IOException
+     */
+    public ExperimentRunner(Path gridFile) throws IOException {
+        Map<String, List<String>> entries = readGrid(gridFile);
+        output = Path.of(single(entries, "output", "experiment.csv"));
+        seed = Long.parseLong(single(entries, "seed", "0"));
+        threads = Integer.parseInt(single(entries, "threads", String.valueOf(Runtime.getRuntime().availableProcessors())));
+        instances = Integer.parseInt(single(entries, "instances", "1"));
+        runs = Integer.parseInt(single(entries, "runs", "1"));
+        String checkpointDirectory = single(entries, "checkpoints", "");
+        checkpoints = checkpointDirectory.isEmpty() ? null : Path.of(checkpointDirectory);
+        checkpointInterval = Integer.parseInt(single(entries, "checkpointInterval", "100"));
+        entries.keySet().removeAll(CONTROL_KEYS);
+        if (!entries.containsKey("algorithm")) throw new IllegalArgumentException("grid without algorithm");
+        grid = entries;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) throw new IllegalArgumentException("usage: ExperimentRunner <grid file>");
+        new ExperimentRunner(Path.of(args[0])).run();
+    }
+
+    /**
+     * Führt alle noch fehlenden Läufe aus und hängt sie an die CSV an
+     * @throws IOException
+     */
+    public void run() throws IOException {
+        List<String> columns = columns();
+        Set<String> done = completedTrials(columns.size() + 7);
+        List<Map<String, String>> trials = new ArrayList<>();
+        for (Map<String, String> configuration : configurations()) {
+            for (int instance = 1; instance <= instances; instance++) {
+                for (int run = 1; run <= runs; run++) {
+                    Map<String, String> trial = new LinkedHashMap<>(configuration);
+                    trial.put("instance", String.valueOf(instance));
+                    trial.put("run", String.valueOf(run));
+                    if (!done.contains(key(trial))) trials.add(trial);
+                }
+            }
+        }
+        System.out.printf("%d trials to run, %d already done%n", trials.size(), done.size());
+
+        if (checkpoints != null) Files.createDirectories(checkpoints);
+        boolean newFile = !Files.exists(output) || Files.size(output) == 0;
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try (BufferedWriter writer = Files.newBufferedWriter(output, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            if (newFile) {
+                writer.write("Trial" + SEPARATOR + "Seed" + SEPARATOR + String.join(SEPARATOR, columns)
+                        + SEPARATOR + "Instance" + SEPARATOR + "Run" + SEPARATOR + "Time in ns" + SEPARATOR + "Result" + SEPARATOR + "Optimum\n");
+                writer.flush();
+            }
+            List<Future<?>> futures = new ArrayList<>();
+            for (Map<String, String> trial : trials) {
+                futures.add(pool.submit(() -> {
+                    String row = runTrial(trial, columns);
+                    synchronized (writer) {
+                        try {
+                            writer.write(row);
+                            // ein Lauf dauert lange, nach jeder Zeile sichern, damit ein Abbruch nichts verliert
+                            writer.flush();
+                            if (checkpoints != null) Files.deleteIfExists(checkpointFile(key(trial)));
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private String runTrial(Map<String, String> trial, List<String> columns) {
+        String key = key(trial);
+        long trialSeed = Seeds.mix(seed ^ fnv(key));
+        Distances distances = instance(trial);
+        long startTime = System.nanoTime();
+        Tour optimum;
+        try (Solver solver = solver(trial, distances, trialSeed)) {
+            int completed = checkpoints == null ? 0 : resume(solver, checkpointFile(key));
+            optimum = solver.solve(termination(trial, completed));
+        }
+        long duration = System.nanoTime() - startTime;
+        StringBuilder row = new StringBuilder();
+        row.append(key).append(SEPARATOR).append(trialSeed);
+        for (String column : columns) {
+            row.append(SEPARATOR).append(trial.getOrDefault(column, ""));
+        }
+        row.append(SEPARATOR).append(trial.get("instance"))
+                .append(SEPARATOR).append(trial.get("run"))
+                .append(SEPARATOR).append(duration)
+                .append(SEPARATOR).append(optimum.getPathWeight())
+                .append(SEPARATOR).append(knownOptimum(trial))
+                .append('\n');
+        return row.toString();
+    }
+
+    /**
+     * Mit dem Schlüssel tsplib wird die angegebene TSPLIB-Datei gelöst. Sonst hängen Instanzen nur von
+     * seed, Knotenanzahl, Gewichtsbereich und Instanznummer ab, alle Verfahren einer Instanznummer lösen
+     * also dieselbe Instanz; jede wird nur einmal erzeugt.
+     * distanceStorage wählt die Speicherung: matrix (Standard), double, float oder quantized
+     */
+    private Distances instance(Map<String, String> trial) {
+        String storage = trial.getOrDefault("distanceStorage", "matrix");
+        String tsplib = trial.get("tsplib");
+        if (tsplib != null) {
+            return memoize(instanceCache, tsplib + "/" + storage, () -> {
+                TsplibInstance instance = tsplibInstance(tsplib);
+                return storage.equals("matrix") ? instance.toDistances() : compact(instance, storage);
+            });
+        }
+        int nodes = Integer.parseInt(trial.getOrDefault("nodes", "50"));
+        double minWeight = Double.parseDouble(trial.getOrDefault("minWeight", "10"));
+        double maxWeight = Double.parseDouble(trial.getOrDefault("maxWeight", "30"));
+        String instanceKey = nodes + "/" + minWeight + "/" + maxWeight + "/" + trial.get("instance");
+        return memoize(instanceCache, instanceKey + "/" + storage, () -> {
+            Distances distances = RandomInstance.randomWeights(nodes, minWeight, maxWeight,
+                    Seeds.mix(seed ^ fnv(instanceKey)), true).getDistances();
+            return storage.equals("matrix") ? distances : compact(distances, storage);
+        });
+    }
+
+    /**
+     * @return eingelesene TSPLIB-Datei, jede wird nur einmal gelesen, für alle Speicherarten und das Optimum
+     */
+    private TsplibInstance tsplibInstance(String file) {
+        return memoize(tsplibCache, file, () -> {
+            try {
+                return TsplibReader.read(Path.of(file));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private static Distances compact(Distances distances, String storage) {
+        return switch (storage) {
+            case "double" -> TriangularDistances.of(distances, TriangularDistances.DOUBLE);
+            case "float" -> TriangularDistances.of(distances, TriangularDistances.FLOAT);
+            case "quantized" -> TriangularDistances.of(distances, TriangularDistances.QUANTIZED);
+            default -> throw new IllegalArgumentException("unknown distanceStorage " + storage);
+        };
+    }
+
+    /**
+     * @return Länge aus der .opt.tour-Datei neben der TSPLIB-Instanz, sonst leer
+     */
+    private String knownOptimum(Map<String, String> trial) {
+        String tsplib = trial.get("tsplib");
+        if (tsplib == null) return "";
+        return memoize(optimumCache, tsplib, () -> {
+            Path tour = Path.of(tsplib.replaceFirst("\\.tsp$", "") + ".opt.tour");
+            if (!Files.exists(tour)) return "";
+            try {
+                return Double.toString(tsplibInstance(tsplib).length(TsplibReader.readTour(tour)));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * Berechnet den Wert je Schlüssel genau einmal. Der erste Lauf trägt eine offene Future ein und rechnet
+     * außerhalb der Map, weitere Läufe mit demselben Schlüssel warten auf sie, andere Schlüssel gar nicht.
+     */
+    private static <T> T memoize(Map<String, CompletableFuture<T>> cache, String key, Supplier<T> compute) {
+        CompletableFuture<T> created = new CompletableFuture<>();
+        CompletableFuture<T> existing = cache.putIfAbsent(key, created);
+        if (existing == null) {
+            try {
+                created.complete(compute.get());
+            } catch (RuntimeException | Error e) {
+                created.completeExceptionally(e);
+                throw e;
+            }
+            return created.join();
+        }
+        try {
+            return existing.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            if (e.getCause() instanceof Error cause) throw cause;
+            throw e;
+        }
+    }
+
+    private static Solver solver(Map<String, String> trial, Distances distances, long trialSeed) {
+        String algorithm = trial.get("algorithm");
+        switch (algorithm) {
+            case "GA" -> {
+                GeneticAlgorithms ga = new GeneticAlgorithms(distances,
+                        intParameter(trial, "populationSize", 100),
+                        intParameter(trial, "mutationType", 0),
+                        intParameter(trial, "recombinationType", 0),
+                        doubleParameter(trial, "mutationRate", 0.5),
+                        doubleParameter(trial, "recombinationRate", 0.5),
+                        trialSeed);
+                ga.setSelection(intParameter(trial, "selectionType", 0), intParameter(trial, "eliteCount", 0));
+                ga.setLocalSearch(doubleParameter(trial, "localSearchRate", 0.0), intParameter(trial, "localSearchDepth", 0));
+                return ga;
+            }
+            case "OffHeapGA" -> {
+                OffHeapGeneticAlgorithms ga = new OffHeapGeneticAlgorithms(distances,
+                        intParameter(trial, "populationSize", 100),
+                        intParameter(trial, "mutationType", 0),
+                        intParameter(trial, "recombinationType", 0),
+                        doubleParameter(trial, "mutationRate", 0.5),
+                        doubleParameter(trial, "recombinationRate", 0.5),
+                        trialSeed);
+                ga.setEliteCount(intParameter(trial, "eliteCount", 1));
+                return ga;
+            }
+            case "ACO" -> {
+                return new AntColonyOptimization(distances,
+                        intParameter(trial, "ants", 10),
+                        0,
+                        doubleParameter(trial, "evaporationRate", 0.1),
+                        doubleParameter(trial, "alpha", 1.0),
+                        doubleParameter(trial, "beta", 2.0),
+                        trialSeed);
+            }
+            case "NI" -> {
+                return new NearestInsertion(distances);
+            }
+            default -> throw new IllegalArgumentException("unknown algorithm " + algorithm);
+        }
+    }
+
+    private Path checkpointFile(String key) {
+        return checkpoints.resolve(Long.toHexString(fnv(key)) + ".ckpt");
+    }
+
+    /**
+     * Aktiviert Checkpoints für GA und ACO und lädt einen vorhandenen
+     * @return Anzahl der im Checkpoint schon abgeschlossenen Iterationen
+     */
+    private int resume(Solver solver, Path file) {
+        try {
+            if (solver instanceof GeneticAlgorithms ga) {
+                ga.setCheckpoint(file, checkpointInterval);
+                if (Files.exists(file)) ga.restore(file);
+                return ga.getGeneration();
+            }
+            if (solver instanceof AntColonyOptimization aco) {
+                aco.setCheckpoint(file, checkpointInterval);
+                if (Files.exists(file)) aco.restore(file);
+                return aco.getIteration();
+            }
+            return 0;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * iterations (Generationen bzw. Iterationen, Standard 500, abzüglich der schon abgeschlossenen),
+     * timeLimitMs, stagnation und targetLength
+     */
+    private static Termination termination(Map<String, String> trial, int completed) {
+        Termination termination = new Termination()
+                .withMaxIterations(Math.max(0, intParameter(trial, "iterations", 500) - completed));
+        if (trial.containsKey("timeLimitMs")) {
+            termination.withTimeLimit(Duration.ofMillis(Long.parseLong(trial.get("timeLimitMs"))));
+        }
+        if (trial.containsKey("stagnation")) termination.withStagnation(intParameter(trial, "stagnation", 0));
+        if (trial.containsKey("targetLength")) termination.withTargetLength(doubleParameter(trial, "targetLength", 0));
+        return termination;
+    }
+
+    private static int intParameter(Map<String, String> trial, String name, int defaultValue) {
+        String value = trial.get(name);
+        return value == null ? defaultValue : Integer.parseInt(value);
+    }
+
+    private static double doubleParameter(Map<String, String> trial, String name, double defaultValue) {
+        String value = trial.get(name);
+        return value == null ? defaultValue : Double.parseDouble(value);
+    }
+
+    /**
+     * Kartesisches Produkt über die gemeinsamen und die für das jeweilige Verfahren geltenden Schlüssel
+     */
+    private List<Map<String, String>> configurations() {
+        List<Map<String, String>> result = new ArrayList<>();
+        for (String algorithm : grid.get("algorithm")) {
+            Map<String, List<String>> dimensions = new LinkedHashMap<>();
+            for (Map.Entry<String, List<String>> entry : grid.entrySet()) {
+                String name = entry.getKey();
+                if (name.equals("algorithm")) continue;
+                int dot = name.indexOf('.');
+                if (dot < 0) {
+                    dimensions.putIfAbsent(name, entry.getValue());
+                } else if (name.substring(0, dot).equals(algorithm)) {
+                    dimensions.put(name.substring(dot + 1), entry.getValue());
+                }
+            }
+            List<Map<String, String>> partial = new ArrayList<>();
+            Map<String, String> start = new LinkedHashMap<>();
+            start.put("algorithm", algorithm);
+            partial.add(start);
+            for (Map.Entry<String, List<String>> dimension : dimensions.entrySet()) {
+                List<Map<String, String>> next = new ArrayList<>();
+                for (Map<String, String> configuration : partial) {
+                    for (String value : dimension.getValue()) {
+                        Map<String, String> extended = new LinkedHashMap<>(configuration);
+                        extended.put(dimension.getKey(), value);
+                        next.add(extended);
+                    }
+                }
+                partial = next;
+            }
+            result.addAll(partial);
+        }
+        return result;
+    }
+
+    /**
+     * @return Parameterspalten der CSV: algorithm und alle Schlüssel ohne Verfahrenspräfix
+     */
+    private List<String> columns() {
+        List<String> columns = new ArrayList<>();
+        for (String name : grid.keySet()) {
+            String column = name.substring(name.indexOf('.') + 1);
+            if (!columns.contains(column)) columns.add(column);
+        }
+        return columns;
+    }
+
+    /**
+     * Eindeutiger Schlüssel eines Laufs, unabhängig von der Reihenfolge der Zeilen in der Gitterdatei
+     */
+    private static String key(Map<String, String> trial) {
+        StringBuilder key = new StringBuilder();
+        trial.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .forEach(e -> key.append(key.length() == 0 ? "" : ",").append(e.getKey()).append('=').append(e.getValue()));
+        return key.toString();
+    }
+
+    /**
+     * @param fieldCount Spaltenanzahl einer vollständigen Zeile, abgebrochene Zeilen zählen nicht
+     * @return Schlüssel der schon in der CSV stehenden Läufe
+     */
+    private Set<String> completedTrials(int fieldCount) throws IOException {
+        Set<String> done = new HashSet<>();
+        if (!Files.exists(output)) return done;
+        List<String> lines = Files.readAllLines(output, StandardCharsets.UTF_8);
+        for (int i = 1; i < lines.size(); i++) {
+            String[] fields = lines.get(i).split(SEPARATOR, -1);
+            if (fields.length == fieldCount) done.add(fields[0]);
+        }
+        return done;
+    }
+
+    private static Map<String, List<String>> readGrid(Path gridFile) throws IOException {
+        Map<String, List<String>> entries = new LinkedHashMap<>();
+        for (String line : Files.readAllLines(gridFile, StandardCharsets.UTF_8)) {
+            int comment = line.indexOf('#');
+            if (comment >= 0) line = line.substring(0, comment);
+            if (line.isBlank()) continue;
+            int equals = line.indexOf('=');
+            if (equals < 0) throw new IllegalArgumentException("invalid grid line: " + line);
+            List<String> values = new ArrayList<>();
+            for (String value : line.substring(equals + 1).split(",")) {
+                if (!value.isBlank()) values.add(value.strip());
+            }
+            if (values.isEmpty()) throw new IllegalArgumentException("no values: " + line);
+            entries.put(line.substring(0, equals).strip(), values);
+        }
+        return entries;
+    }
+
+    private static String single(Map<String, List<String>> entries, String name, String defaultValue) {
+        List<String> values = entries.get(name);
+        if (values == null) return defaultValue;
+        if (values.size() != 1) throw new IllegalArgumentException(name + " takes a single value");
+        return values.get(0);
+    }
+
+    private static long fnv(String s) {
+        long h = 0xCBF29CE484222325L;
+        for (byte b : s.getBytes(StandardCharsets.UTF_8)) {
+            h = (h ^ b) * 0x100000001B3L;
+        }
+        return h;
+    }
+}
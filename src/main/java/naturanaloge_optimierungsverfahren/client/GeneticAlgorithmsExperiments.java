@@ -2,12 +2,16 @@ package naturanaloge_optimierungsverfahren.client;
 
 import naturanaloge_optimierungsverfahren.algo.AntColonyOptimization;
 import naturanaloge_optimierungsverfahren.algo.GeneticAlgorithms;
+import naturanaloge_optimierungsverfahren.algo.IslandModel;
 import naturanaloge_optimierungsverfahren.algo.NearestInsertion;
+import naturanaloge_optimierungsverfahren.algo.Termination;
+import naturanaloge_optimierungsverfahren.logic.DistanceMatrix;
 import naturanaloge_optimierungsverfahren.logic.Tour;
 import org.graphstream.graph.Graph;
 
 import java.io.FileWriter;
 import java.io.IOException;
+import java.time.Duration;
 
 import static naturanaloge_optimierungsverfahren.generator.CompleteGraphGenerator.generate;
 
@@ -82,6 +86,22 @@ public class GeneticAlgorithmsExperiments {
                 endTime = System.nanoTime();
                 duration = endTime - startTime;
                 writer.write(String.format("Cycle-Crossover;%d;%d;%f\n", i + 1, duration, optimum2.getPathWeight()));
+
+                // Partially-Mapped-Crossover
+                startTime = System.nanoTime();
+                GeneticAlgorithms ga3 = new GeneticAlgorithms(g, populationSize, 0, 2);
+                Tour optimum3 = ga3.findOptimum(generations);
+                endTime = System.nanoTime();
+                duration = endTime - startTime;
+                writer.write(String.format("Partially-Mapped-Crossover;%d;%d;%f\n", i + 1, duration, optimum3.getPathWeight()));
+
+                // Edge-Recombination
+                startTime = System.nanoTime();
+                GeneticAlgorithms ga4 = new GeneticAlgorithms(g, populationSize, 0, 3);
+                Tour optimum4 = ga4.findOptimum(generations);
+                endTime = System.nanoTime();
+                duration = endTime - startTime;
+                writer.write(String.format("Edge-Recombination;%d;%d;%f\n", i + 1, duration, optimum4.getPathWeight()));
             }
         } catch (IOException e) {
             e.printStackTrace();
@@ -157,6 +177,113 @@ public class GeneticAlgorithmsExperiments {
         }
     }
 
+    public static void parallelismTest(int populationSize, int generations){
+        try (FileWriter writer = new FileWriter("parallelism_test.csv")) {
+            // Write CSV header
+            writer.write("Threads;Run;Time in ns;Offspring per s;Result\n");
+            int maxThreads = Runtime.getRuntime().availableProcessors();
+            for (int j = 1; j <= 5; j++) {
+                Graph g = generate("g", 50, 10, 30);
+                for (int threads = 1; threads <= maxThreads; threads *= 2) {
+
+                    long startTime = System.nanoTime();
+                    try (GeneticAlgorithms ga1 = new GeneticAlgorithms(g, populationSize, 0, 0, 0.3, 0.7, j)) {
+                        ga1.setParallelism(threads);
+                        Tour optimum1 = ga1.findOptimum(generations);
+                        long endTime = System.nanoTime();
+                        long duration = endTime - startTime;
+                        double offspringPerSecond = ga1.getOffspringCount() / (duration / 1e9);
+                        writer.write(String.format("%d;%d;%d;%f;%f\n", threads, j, duration, offspringPerSecond, optimum1.getPathWeight()));
+                    }
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    public static void islandModelTest(int populationSize, int generations){
+        try (FileWriter writer = new FileWriter("island_model_test.csv")) {
+            // Write CSV header
+            writer.write("Algorithm;Run;Time;Result\n");
+            int islands = Runtime.getRuntime().availableProcessors();
+            for (int i = 0; i < 50; i++) {
+                DistanceMatrix distances = new DistanceMatrix(generate("g", 50, 10, 30));
+
+                // Eine Population
+                long startTime = System.nanoTime();
+                GeneticAlgorithms ga1 = new GeneticAlgorithms(distances, populationSize, 0, 0, 0.3, 0.7, i);
+                Tour optimum1 = ga1.findOptimum(generations);
+                long endTime = System.nanoTime();
+                long duration = endTime - startTime;
+                writer.write(String.format("Single;%d;%d;%f\n", i + 1, duration, optimum1.getPathWeight()));
+
+                // Inseln, gleiche Gesamtgröße der Population
+                startTime = System.nanoTime();
+                IslandModel model = IslandModel.withMixedOperators(distances, islands, Math.max(2, populationSize / islands),
+                        0.3, 0.7, IslandModel.Topology.RING, 25, 2, i);
+                Tour optimum2 = model.findOptimum(generations);
+                endTime = System.nanoTime();
+                duration = endTime - startTime;
+                writer.write(String.format("Islands;%d;%d;%f\n", i + 1, duration, optimum2.getPathWeight()));
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    public static void memeticTest(int populationSize, int generations){
+        try (FileWriter writer = new FileWriter("memetic_test.csv")) {
+            // Write CSV header
+            writer.write("LocalSearchRate;Run;Time in ns;Result\n");
+            for (int j = 1; j <= 5; j++) {
+                DistanceMatrix distances = new DistanceMatrix(generate("g", 50, 10, 30));
+                double localSearchRate = 0;
+                for (int i = 0; i <= 5; i++) {
+
+                    long startTime = System.nanoTime();
+                    GeneticAlgorithms ga1 = new GeneticAlgorithms(distances, populationSize, 0, 0, 0.3, 0.7, j);
+                    ga1.setLocalSearch(localSearchRate, 0);
+                    Tour optimum1 = ga1.findOptimum(generations);
+                    long endTime = System.nanoTime();
+                    long duration = endTime - startTime;
+                    writer.write(String.format("%g;%d;%d;%f\n", localSearchRate, j, duration, optimum1.getPathWeight()));
+                    localSearchRate += 0.2;
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Feste Rechenzeit statt fester Generationszahl: GA und ACO laufen je Knotenanzahl gleich lange,
+     * zusätzlich Abbruch nach 200 Iterationen ohne Verbesserung
+     */
+    public static void timeBudgetTest(int populationSize, long millis){
+        try (FileWriter writer = new FileWriter("time_budget_test.csv")) {
+            // Write CSV header
+            writer.write("Algorithm;Nodes;Time in ns;Result\n");
+            for (int nodes = 50; nodes <= 400; nodes *= 2) {
+                DistanceMatrix distances = new DistanceMatrix(generate("g", nodes, 10, 30));
+
+                long startTime = System.nanoTime();
+                GeneticAlgorithms ga = new GeneticAlgorithms(distances, populationSize, 0, 0, 0.3, 0.7, nodes);
+                Tour optimum1 = ga.findOptimum(Termination.timeLimit(Duration.ofMillis(millis)).withStagnation(200));
+                long duration = System.nanoTime() - startTime;
+                writer.write(String.format("GA;%d;%d;%f\n", nodes, duration, optimum1.getPathWeight()));
+
+                startTime = System.nanoTime();
+                AntColonyOptimization aco = new AntColonyOptimization(distances, 10, 0, 0.1, 1.0, 2.0, nodes);
+                Tour optimum2 = aco.solve(Termination.timeLimit(Duration.ofMillis(millis)).withStagnation(200));
+                duration = System.nanoTime() - startTime;
+                writer.write(String.format("ACO;%d;%d;%f\n", nodes, duration, optimum2.getPathWeight()));
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
     public static void acoVSgaVSni(int populationSize, int generations){
         try (FileWriter writer = new FileWriter("aco_ga_ni.csv")) {
             // Write CSV header
@@ -1,10 +1,25 @@
 package naturanaloge_optimierungsverfahren.client;
 
+import naturanaloge_optimierungsverfahren.algo.AntColonyOptimization;
 import naturanaloge_optimierungsverfahren.algo.GeneticAlgorithms;
+import naturanaloge_optimierungsverfahren.algo.Improvement;
+import naturanaloge_optimierungsverfahren.algo.LinKernighan;
 import naturanaloge_optimierungsverfahren.algo.NearestInsertion;
+import naturanaloge_optimierungsverfahren.algo.Solver;
+import naturanaloge_optimierungsverfahren.algo.Termination;
+import naturanaloge_optimierungsverfahren.logic.DistanceMatrix;
 import naturanaloge_optimierungsverfahren.logic.Tour;
 import org.graphstream.graph.Graph;
 
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.Future;
+
 import static naturanaloge_optimierungsverfahren.generator.CompleteGraphGenerator.generate;
 
 public class TSPClient {
@@ -68,4 +83,77 @@ public class TSPClient {
             System.out.println("-------------------------------------------------------------------------------------");
         }
     }
+
+    public static void niVSlk(){
+        for (int i = 0; i < 10; i++) {
+            DistanceMatrix distances = new DistanceMatrix(generate("g", 500, 10, 50));
+            long niStart = System.currentTimeMillis();
+            Tour optimum1 = new NearestInsertion(distances).solve();
+            long niEnd = System.currentTimeMillis();
+            long niTime = niEnd-niStart;
+            long lkStart = System.currentTimeMillis();
+            Tour optimum2 = new LinKernighan(distances).solve(optimum1, 1000, i);
+            long lkEnd = System.currentTimeMillis();
+            long lkTime = lkEnd-lkStart;
+            System.out.println("-------------------------------------------------------------------------------------");
+            System.out.printf("NearestInsertion: %f | time: %d ms%n", optimum1.getPathWeight(), niTime);
+            System.out.printf("NearestInsertion + LinKernighan: %f | time: %d ms%n", optimum2.getPathWeight(), lkTime);
+            System.out.println("-------------------------------------------------------------------------------------");
+        }
+    }
+
+    /**
+     * Alle Verfahren laufen gleichzeitig mit demselben Zeitbudget, Verbesserungen werden laufend ausgegeben
+     */
+    public static void solverRace(){
+        DistanceMatrix distances = new DistanceMatrix(generate("g", 300, 10, 50));
+        Map<String, Solver> solvers = new LinkedHashMap<>();
+        solvers.put("GA", new GeneticAlgorithms(distances, 500, 0, 0, 0.3, 0.7, 1));
+        solvers.put("ACO", new AntColonyOptimization(distances, 10, 0, 0.1, 1.0, 2.0, 1));
+        solvers.put("NearestInsertion", new NearestInsertion(distances));
+        ExecutorService pool = Executors.newFixedThreadPool(solvers.size());
+        Map<String, Future<Tour>> results = new LinkedHashMap<>();
+        for (Map.Entry<String, Solver> entry : solvers.entrySet()) {
+            entry.getValue().improvements().subscribe(new PrintingSubscriber(entry.getKey()));
+            results.put(entry.getKey(), pool.submit(() -> entry.getValue().solve(Termination.timeLimit(Duration.ofSeconds(5)))));
+        }
+        try {
+            for (Map.Entry<String, Future<Tour>> result : results.entrySet()) {
+                System.out.printf("%s: %f%n", result.getKey(), result.getValue().get().getPathWeight());
+            }
+        } catch (InterruptedException | ExecutionException e) {
+            e.printStackTrace();
+        } finally {
+            pool.shutdown();
+            solvers.values().forEach(Solver::close);
+        }
+    }
+
+    private static class PrintingSubscriber implements Flow.Subscriber<Improvement> {
+        private final String name;
+
+        PrintingSubscriber(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(Improvement item) {
+            System.out.printf("%s: %f after %d ms (iteration %d, %d evaluations)%n", name, item.bestLength(),
+                    item.elapsedNanos() / 1_000_000, item.iteration(), item.evaluations());
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            throwable.printStackTrace();
+        }
+
+        @Override
+        public void onComplete() {
+        }
+    }
 }
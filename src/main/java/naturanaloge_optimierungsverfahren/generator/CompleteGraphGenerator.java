@@ -1,33 +1,26 @@
 package naturanaloge_optimierungsverfahren.generator;
 
-import org.graphstream.graph.Edge;
 import org.graphstream.graph.Graph;
-import org.graphstream.graph.implementations.SingleGraph;
+
+import java.util.Random;
 
 public class CompleteGraphGenerator {
 
     public static Graph generate(String id, int nodeCount, double minWeight, double maxWeight) {
-        if (nodeCount < 4) throw new IllegalArgumentException();
-        Graph graph = new SingleGraph(id);
-        graph.setAttribute("ui.stylesheet", "url("+ CompleteGraphGenerator.class.getResource("/stylesheets/nodesAndEdges.css")+")");
-        graph.setStrict(false);
-        graph.setAutoCreate(true);
-        graph.addNode("0");
-        for (int source = 0; source < nodeCount-1; source++) {
-            graph.getNode(source).setAttribute("ui.label", graph.getNode(source).getId());
-            for (int target = source+1; target < nodeCount; target++){
-                String edgeId = source + "+" + target;
-                Edge edge = graph.addEdge(edgeId, Integer.toString(source), Integer.toString(target));
-                double weight = randomWeight(minWeight, maxWeight);
-                edge.setAttribute("weight", weight);
-                edge.setAttribute("ui.label", weight);
-            }
-        }
-        graph.getNode(nodeCount-1).setAttribute("ui.label", graph.getNode(nodeCount-1).getId());
-        return graph;
+        return generate(id, nodeCount, minWeight, maxWeight, new Random().nextLong());
     }
 
-    private static double randomWeight(double minWeight, double maxWeight) {
-        return (Math.random() * (maxWeight - minWeight) + minWeight);
+    /**
+     * @param id
+     * @param nodeCount
+     * @param minWeight
+     * @param maxWeight
+     * @param seed gleicher Seed ergibt dieselben Kantengewichte
+     * @return vollständiger Graph mit gleichverteilten Kantengewichten, Gewichte wie
+     *         {@link RandomInstance#randomWeights(int, double, double, long, boolean)}; für Läufe ohne
+     *         Darstellung direkt RandomInstance verwenden
+     */
+    public static Graph generate(String id, int nodeCount, double minWeight, double maxWeight, long seed) {
+        return RandomInstance.randomWeights(nodeCount, minWeight, maxWeight, seed, false).toGraph(id);
     }
 }
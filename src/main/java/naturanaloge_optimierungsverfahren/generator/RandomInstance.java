@@ -0,0 +1,144 @@
+package naturanaloge_optimierungsverfahren.generator;
+
+import naturanaloge_optimierungsverfahren.logic.DistanceMatrix;
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.implementations.SingleGraph;
+
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+/**
+ * Zufällige vollständige Instanz in primitiver Form, direkt als Distanzmatrix ohne GraphStream-Kanten.
+ * Jede Zeile der Matrix hat einen eigenen, aus dem Seed abgeleiteten Zufallsstrom, daher ergibt derselbe
+ * Seed sequentiell und parallel erzeugt dieselbe Instanz. Ein {@link Graph} wird nur für die Darstellung
+ * erzeugt ({@link #toGraph(String)}).
+ */
+public class RandomInstance {
+
+    private final DistanceMatrix distances;
+    /** nur bei euklidischen Instanzen, sonst null */
+    private final double[] x;
+    private final double[] y;
+
+    private RandomInstance(DistanceMatrix distances, double[] x, double[] y) {
+        this.distances = distances;
+        this.x = x;
+        this.y = y;
+    }
+
+    /**
+     * @param nodeCount
+     * @param minWeight
+     * @param maxWeight
+     * @param seed gleicher Seed ergibt dieselben Kantengewichte
+     * @param parallel Zeilen der Matrix parallel füllen
+     * @return symmetrische Instanz mit gleichverteilten Kantengewichten in [minWeight, maxWeight)
+     */
+    public static RandomInstance randomWeights(int nodeCount, double minWeight, double maxWeight, long seed,
+                                               boolean parallel) {
+        checkSize(nodeCount);
+        if (!(minWeight <= maxWeight)) throw new IllegalArgumentException();
+        long[] rowSeeds = rowSeeds(nodeCount, seed);
+        double[] distances = new double[nodeCount * nodeCount];
+        // Zeile i schreibt nur die Einträge (i,j) und (j,i) mit j > i
+        rows(nodeCount, parallel).forEach(i -> {
+            SplittableRandom random = new SplittableRandom(rowSeeds[i]);
+            for (int j = i + 1; j < nodeCount; j++) {
+                double weight = random.nextDouble() * (maxWeight - minWeight) + minWeight;
+                distances[i * nodeCount + j] = weight;
+                distances[j * nodeCount + i] = weight;
+            }
+        });
+        return new RandomInstance(new DistanceMatrix(nodeCount, distances), null, null);
+    }
+
+    /**
+     * @param nodeCount
+     * @param extent Kantenlänge des Quadrats, in dem die Punkte gleichverteilt liegen
+     * @param seed gleicher Seed ergibt dieselben Punkte
+     * @param parallel Zeilen der Matrix parallel füllen
+     * @return Instanz mit euklidischen Distanzen zwischen zufälligen Punkten
+     */
+    public static RandomInstance euclidean(int nodeCount, double extent, long seed, boolean parallel) {
+        checkSize(nodeCount);
+        if (!(extent > 0)) throw new IllegalArgumentException();
+        SplittableRandom random = new SplittableRandom(seed);
+        double[] x = new double[nodeCount];
+        double[] y = new double[nodeCount];
+        for (int i = 0; i < nodeCount; i++) {
+            x[i] = random.nextDouble(extent);
+            y[i] = random.nextDouble(extent);
+        }
+        double[] distances = new double[nodeCount * nodeCount];
+        rows(nodeCount, parallel).forEach(i -> {
+            for (int j = 0; j < nodeCount; j++) {
+                double dx = x[i] - x[j];
+                double dy = y[i] - y[j];
+                distances[i * nodeCount + j] = Math.sqrt(dx * dx + dy * dy);
+            }
+        });
+        return new RandomInstance(new DistanceMatrix(nodeCount, distances), x, y);
+    }
+
+    private static void checkSize(int nodeCount) {
+        if (nodeCount < 4) throw new IllegalArgumentException();
+        if ((long) nodeCount * nodeCount > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException(nodeCount + " nodes are too many for a full distance matrix");
+        }
+    }
+
+    private static long[] rowSeeds(int nodeCount, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        long[] seeds = new long[nodeCount];
+        for (int i = 0; i < nodeCount; i++) {
+            seeds[i] = random.nextLong();
+        }
+        return seeds;
+    }
+
+    private static IntStream rows(int nodeCount, boolean parallel) {
+        IntStream rows = IntStream.range(0, nodeCount);
+        return parallel ? rows.parallel() : rows;
+    }
+
+    public DistanceMatrix getDistances() {
+        return distances;
+    }
+
+    public int size() {
+        return distances.size();
+    }
+
+    public boolean hasCoordinates() {
+        return x != null;
+    }
+
+    /**
+     * Baut den Graphen für die Darstellung: Knoten-Ids und Indizes 0..n-1 wie in der Matrix, Kanten mit
+     * Attribut weight und Beschriftung, bei euklidischen Instanzen Knoten an ihren Koordinaten
+     * @param id
+     * @return vollständiger Graph mit n(n-1)/2 Kanten
+     */
+    public Graph toGraph(String id) {
+        int nodeCount = size();
+        Graph graph = new SingleGraph(id);
+        graph.setAttribute("ui.stylesheet", "url("+ RandomInstance.class.getResource("/stylesheets/nodesAndEdges.css")+")");
+        graph.setStrict(false);
+        graph.setAutoCreate(true);
+        for (int i = 0; i < nodeCount; i++) {
+            String nodeId = Integer.toString(i);
+            graph.addNode(nodeId).setAttribute("ui.label", nodeId);
+            if (hasCoordinates()) graph.getNode(i).setAttribute("xy", x[i], y[i]);
+        }
+        for (int source = 0; source < nodeCount - 1; source++) {
+            for (int target = source + 1; target < nodeCount; target++) {
+                Edge edge = graph.addEdge(source + "+" + target, source, target);
+                double weight = distances.distance(source, target);
+                edge.setAttribute("weight", weight);
+                edge.setAttribute("ui.label", weight);
+            }
+        }
+        return graph;
+    }
+}
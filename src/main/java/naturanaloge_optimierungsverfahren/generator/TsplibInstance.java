@@ -0,0 +1,160 @@
+package naturanaloge_optimierungsverfahren.generator;
+
+import naturanaloge_optimierungsverfahren.logic.DistanceMatrix;
+import naturanaloge_optimierungsverfahren.logic.Distances;
+import naturanaloge_optimierungsverfahren.logic.EuclideanDistances;
+
+import java.util.stream.IntStream;
+
+/**
+ * Eingelesene TSPLIB-Instanz in primitiver Form: entweder Koordinaten mit einer Distanzfunktion
+ * (EUC_2D, CEIL_2D, GEO, ATT) oder eine explizite, vollständige Matrix.
+ * Distanzen werden wie in TSPLIB vorgeschrieben auf ganze Zahlen gerundet.
+ * Die Instanz ist selbst eine Distanzfunktion, die jede Distanz bei Bedarf berechnet.
+ */
+public class TsplibInstance implements Distances {
+
+    public enum EdgeWeightType {EUC_2D, CEIL_2D, GEO, ATT, EXPLICIT}
+
+    private static final double PI = 3.141592;
+    private static final double EARTH_RADIUS = 6378.388;
+    /** bis zu dieser Größe lohnt die vollständige Matrix, 5000² doubles sind 200 MB */
+    private static final int MAX_MATRIX_SIZE = 5000;
+
+    private final String name;
+    private final int dimension;
+    private final EdgeWeightType type;
+    private final double[] x;
+    private final double[] y;
+    /** nur bei EXPLICIT: n×n zeilenweise */
+    private final double[] weights;
+    /** nur bei EUC_2D, CEIL_2D und ATT */
+    private final EuclideanDistances planar;
+
+    TsplibInstance(String name, EdgeWeightType type, double[] x, double[] y) {
+        this.name = name;
+        this.dimension = x.length;
+        this.type = type;
+        this.x = x;
+        this.y = y;
+        this.weights = null;
+        this.planar = type == EdgeWeightType.GEO ? null : new EuclideanDistances(x, y, rounding(type));
+    }
+
+    TsplibInstance(String name, int dimension, double[] weights) {
+        this.name = name;
+        this.dimension = dimension;
+        this.type = EdgeWeightType.EXPLICIT;
+        this.x = null;
+        this.y = null;
+        this.weights = weights;
+        this.planar = null;
+    }
+
+    private static int rounding(EdgeWeightType type) {
+        return switch (type) {
+            case EUC_2D -> EuclideanDistances.ROUND;
+            case CEIL_2D -> EuclideanDistances.CEIL;
+            case ATT -> EuclideanDistances.ATT;
+            default -> throw new IllegalArgumentException(type.name());
+        };
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public int size() {
+        return dimension;
+    }
+
+    public EdgeWeightType getEdgeWeightType() {
+        return type;
+    }
+
+    /**
+     * @return x-Koordinate des Knotens mit Index i, NaN bei expliziten Instanzen
+     */
+    public double x(int i) {
+        return x == null ? Double.NaN : x[i];
+    }
+
+    public double y(int i) {
+        return y == null ? Double.NaN : y[i];
+    }
+
+    /**
+     * @return Distanz nach der Vorschrift der Instanz, ohne Matrix berechnet
+     */
+    @Override
+    public double distance(int i, int j) {
+        if (i == j) return 0.0;
+        return switch (type) {
+            case EXPLICIT -> weights[i * dimension + j];
+            case EUC_2D, CEIL_2D, ATT -> planar.distance(i, j);
+            case GEO -> geo(i, j);
+        };
+    }
+
+    private double geo(int i, int j) {
+        double latI = radians(x[i]);
+        double lonI = radians(y[i]);
+        double latJ = radians(x[j]);
+        double lonJ = radians(y[j]);
+        double q1 = Math.cos(lonI - lonJ);
+        double q2 = Math.cos(latI - latJ);
+        double q3 = Math.cos(latI + latJ);
+        return (int) (EARTH_RADIUS * Math.acos(0.5 * ((1.0 + q1) * q2 - (1.0 - q1) * q3)) + 1.0);
+    }
+
+    /**
+     * GEO-Koordinaten sind Grad.Minuten (DDD.MM)
+     */
+    private static double radians(double degreesMinutes) {
+        int degrees = (int) degreesMinutes;
+        double minutes = degreesMinutes - degrees;
+        return PI * (degrees + 5.0 * minutes / 3.0) / 180.0;
+    }
+
+    /**
+     * @param tour Permutation der Knotenindizes, z.B. aus {@link TsplibReader#readTour(java.nio.file.Path)}
+     * @return Länge der Rundreise, z.B. die bekannte optimale Länge für die Berechnung einer Lücke
+     */
+    public double length(int[] tour) {
+        if (tour.length != dimension) throw new IllegalArgumentException();
+        double length = distance(tour[tour.length - 1], tour[0]);
+        for (int i = 1; i < tour.length; i++) {
+            length += distance(tour[i - 1], tour[i]);
+        }
+        return length;
+    }
+
+    /**
+     * @return vollständige Matrix für kleine Instanzen, sonst Berechnung bei Bedarf: ebene Instanzen mit
+     *         Kandidatenlisten aus dem Gitter, GEO direkt über diese Instanz
+     */
+    public Distances toDistances() {
+        if (dimension <= MAX_MATRIX_SIZE || type == EdgeWeightType.EXPLICIT) return toDistanceMatrix();
+        if (type == EdgeWeightType.GEO) return this;
+        return planar;
+    }
+
+    /**
+     * Füllt die Distanzmatrix der Solver direkt, zeilenweise parallel
+     * @return vollständige Matrix, n² Einträge
+     */
+    public DistanceMatrix toDistanceMatrix() {
+        if ((long) dimension * dimension > Integer.MAX_VALUE - 8) {
+            throw new IllegalStateException(name + ": " + dimension + " nodes are too many for a full distance matrix");
+        }
+        if (weights != null) return new DistanceMatrix(dimension, weights); // wird nur gelesen
+        double[] distances = new double[dimension * dimension];
+        IntStream.range(0, dimension).parallel().forEach(i -> {
+            for (int j = 0; j < dimension; j++) {
+                distances[i * dimension + j] = distance(i, j);
+            }
+        });
+        return new DistanceMatrix(dimension, distances);
+    }
+}
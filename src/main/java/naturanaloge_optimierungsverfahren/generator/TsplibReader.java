@@ -0,0 +1,266 @@
+package naturanaloge_optimierungsverfahren.generator;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Liest Instanzen (.tsp) und Rundreisen (.opt.tour) im TSPLIB-Format. Die Datei wird über einen
+ * FileChannel in den Speicher abgebildet und byteweise gelesen, Zahlen werden ohne Zwischen-Strings
+ * geparst. Unterstützt werden TYPE TSP mit EDGE_WEIGHT_TYPE EUC_2D, CEIL_2D, GEO, ATT und EXPLICIT
+ * (FULL_MATRIX sowie obere und untere Dreiecksformate, zeilen- oder spaltenweise).
+ */
+public class TsplibReader {
+
+    private static final double[] POWERS_OF_TEN = new double[23];
+
+    static {
+        POWERS_OF_TEN[0] = 1.0;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10.0;
+        }
+    }
+
+    private final MappedByteBuffer buffer;
+    private final int limit;
+    private int position;
+
+    private TsplibReader(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) throw new IOException(file + " is larger than 2 GB");
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        limit = buffer.limit();
+    }
+
+    /**
+     * @param file .tsp-Datei
+     * @return Instanz mit Koordinaten bzw. expliziter Matrix
+     * @throws IOException bei Lesefehlern oder nicht unterstütztem Format
+     */
+    public static TsplibInstance read(Path file) throws IOException {
+        TsplibReader reader = new TsplibReader(file);
+        Map<String, String> header = new HashMap<>();
+        double[] x = null;
+        double[] y = null;
+        double[] weights = null;
+        String line;
+        while ((line = reader.nextLine()) != null) {
+            if (line.isEmpty()) continue;
+            int colon = line.indexOf(':');
+            if (colon >= 0) {
+                header.put(line.substring(0, colon).strip(), line.substring(colon + 1).strip());
+                continue;
+            }
+            int dimension = dimension(header, file);
+            switch (line) {
+                case "NODE_COORD_SECTION" -> {
+                    if (edgeWeightType(header, file) == TsplibInstance.EdgeWeightType.EXPLICIT) {
+                        throw new IOException(file + ": NODE_COORD_SECTION in an EXPLICIT instance");
+                    }
+                    x = new double[dimension];
+                    y = new double[dimension];
+                    for (int k = 0; k < dimension; k++) {
+                        int id = (int) reader.nextNumber() - 1;
+                        if (id < 0 || id >= dimension) throw new IOException(file + ": invalid node id " + (id + 1));
+                        x[id] = reader.nextNumber();
+                        y[id] = reader.nextNumber();
+                    }
+                }
+                case "EDGE_WEIGHT_SECTION" -> weights = reader.readMatrix(dimension,
+                        header.getOrDefault("EDGE_WEIGHT_FORMAT", "FULL_MATRIX"), file);
+                case "DISPLAY_DATA_SECTION" -> {
+                    for (int k = 0; k < 3 * dimension; k++) {
+                        reader.nextNumber();
+                    }
+                }
+                case "EOF" -> {
+                    return instance(header, x, y, weights, file);
+                }
+                default -> throw new IOException(file + ": unsupported section " + line);
+            }
+        }
+        return instance(header, x, y, weights, file);
+    }
+
+    /**
+     * @param file .opt.tour- oder .tour-Datei
+     * @return Rundreise als Permutation der Knotenindizes 0..n-1
+     * @throws IOException
+     */
+    public static int[] readTour(Path file) throws IOException {
+        TsplibReader reader = new TsplibReader(file);
+        Map<String, String> header = new HashMap<>();
+        String line;
+        while ((line = reader.nextLine()) != null) {
+            if (line.isEmpty()) continue;
+            int colon = line.indexOf(':');
+            if (colon >= 0) {
+                header.put(line.substring(0, colon).strip(), line.substring(colon + 1).strip());
+            } else if (line.equals("TOUR_SECTION")) {
+                int dimension = dimension(header, file);
+                int[] tour = new int[dimension];
+                boolean[] seen = new boolean[dimension];
+                for (int k = 0; k < dimension; k++) {
+                    int node = (int) reader.nextNumber() - 1;
+                    if (node < 0 || node >= dimension || seen[node]) throw new IOException(file + ": invalid tour");
+                    seen[node] = true;
+                    tour[k] = node;
+                }
+                return tour;
+            }
+        }
+        throw new IOException(file + ": no TOUR_SECTION");
+    }
+
+    private static int dimension(Map<String, String> header, Path file) throws IOException {
+        String dimension = header.get("DIMENSION");
+        if (dimension == null) throw new IOException(file + ": DIMENSION missing before data section");
+        return Integer.parseInt(dimension);
+    }
+
+    private static TsplibInstance instance(Map<String, String> header, double[] x, double[] y, double[] weights,
+                                           Path file) throws IOException {
+        String type = header.getOrDefault("TYPE", "TSP");
+        if (!type.equals("TSP")) throw new IOException(file + ": unsupported TYPE " + type);
+        String name = header.getOrDefault("NAME", file.getFileName().toString());
+        TsplibInstance.EdgeWeightType weightType = edgeWeightType(header, file);
+        if (weightType == TsplibInstance.EdgeWeightType.EXPLICIT) {
+            if (weights == null) throw new IOException(file + ": EDGE_WEIGHT_SECTION missing");
+            return new TsplibInstance(name, dimension(header, file), weights);
+        }
+        if (x == null) throw new IOException(file + ": NODE_COORD_SECTION missing");
+        return new TsplibInstance(name, weightType, x, y);
+    }
+
+    private static TsplibInstance.EdgeWeightType edgeWeightType(Map<String, String> header, Path file) throws IOException {
+        String edgeWeightType = header.get("EDGE_WEIGHT_TYPE");
+        try {
+            return TsplibInstance.EdgeWeightType.valueOf(String.valueOf(edgeWeightType));
+        } catch (IllegalArgumentException e) {
+            throw new IOException(file + ": unsupported EDGE_WEIGHT_TYPE " + edgeWeightType);
+        }
+    }
+
+    /**
+     * Liest die Einträge im angegebenen Format und spiegelt sie in eine volle symmetrische Matrix.
+     * Spaltenweise Dreiecke entsprechen dem jeweils anderen zeilenweisen Dreieck.
+     * @throws IllegalArgumentException wenn n² Einträge nicht in ein Array passen
+     */
+    private double[] readMatrix(int n, String format, Path file) throws IOException {
+        if ((long) n * n > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException(file + ": DIMENSION " + n + " is too large for an explicit distance matrix");
+        }
+        double[] weights = new double[n * n];
+        switch (format) {
+            case "FULL_MATRIX" -> {
+                for (int i = 0; i < n * n; i++) {
+                    weights[i] = nextNumber();
+                }
+                return weights;
+            }
+            case "UPPER_ROW", "LOWER_COL" -> {
+                for (int i = 0; i < n; i++) {
+                    for (int j = i + 1; j < n; j++) {
+                        setSymmetric(weights, n, i, j, nextNumber());
+                    }
+                }
+            }
+            case "LOWER_ROW", "UPPER_COL" -> {
+                for (int i = 0; i < n; i++) {
+                    for (int j = 0; j < i; j++) {
+                        setSymmetric(weights, n, i, j, nextNumber());
+                    }
+                }
+            }
+            case "UPPER_DIAG_ROW", "LOWER_DIAG_COL" -> {
+                for (int i = 0; i < n; i++) {
+                    for (int j = i; j < n; j++) {
+                        setSymmetric(weights, n, i, j, nextNumber());
+                    }
+                }
+            }
+            case "LOWER_DIAG_ROW", "UPPER_DIAG_COL" -> {
+                for (int i = 0; i < n; i++) {
+                    for (int j = 0; j <= i; j++) {
+                        setSymmetric(weights, n, i, j, nextNumber());
+                    }
+                }
+            }
+            default -> throw new IOException(file + ": unsupported EDGE_WEIGHT_FORMAT " + format);
+        }
+        return weights;
+    }
+
+    private static void setSymmetric(double[] weights, int n, int i, int j, double value) {
+        weights[i * n + j] = value;
+        weights[j * n + i] = value;
+    }
+
+    /**
+     * @return nächste Zeile ohne führende und folgende Leerzeichen, null am Dateiende
+     */
+    private String nextLine() {
+        if (position >= limit) return null;
+        int start = position;
+        while (position < limit && buffer.get(position) != '\n') {
+            position++;
+        }
+        byte[] bytes = new byte[position - start];
+        buffer.get(start, bytes);
+        if (position < limit) position++;
+        return new String(bytes, StandardCharsets.US_ASCII).strip();
+    }
+
+    /**
+     * Liest die nächste Zahl. Ganzzahlen und Dezimalzahlen mit höchstens 15 Ziffern werden direkt
+     * aus den Bytes berechnet (exakt gerundet, da Mantisse und Zehnerpotenz als double exakt sind),
+     * alles andere, z.B. mit Exponent, über Double.parseDouble.
+     */
+    private double nextNumber() throws IOException {
+        while (position < limit && buffer.get(position) <= ' ') {
+            position++;
+        }
+        if (position >= limit) throw new IOException("unexpected end of file");
+        int start = position;
+        boolean negative = false;
+        byte b = buffer.get(position);
+        if (b == '-' || b == '+') {
+            negative = b == '-';
+            position++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = -1;
+        boolean simple = true;
+        while (position < limit && (b = buffer.get(position)) > ' ') {
+            if (b >= '0' && b <= '9') {
+                mantissa = mantissa * 10 + (b - '0');
+                digits++;
+                if (fractionDigits >= 0) fractionDigits++;
+            } else if (b == '.' && fractionDigits < 0) {
+                fractionDigits = 0;
+            } else {
+                simple = false;
+            }
+            position++;
+        }
+        if (digits == 0 && simple) throw new IOException("number expected at byte " + start);
+        if (!simple || digits > 15 || fractionDigits > 22) {
+            byte[] token = new byte[position - start];
+            buffer.get(start, token);
+            try {
+                return Double.parseDouble(new String(token, StandardCharsets.US_ASCII));
+            } catch (NumberFormatException e) {
+                throw new IOException("invalid number " + new String(token, StandardCharsets.US_ASCII));
+            }
+        }
+        double value = fractionDigits > 0 ? mantissa / POWERS_OF_TEN[fractionDigits] : mantissa;
+        return negative ? -value : value;
+    }
+}
@@ -0,0 +1,63 @@
+package naturanaloge_optimierungsverfahren.logic;
+
+/**
+ * Berechnet die Längen vieler Touren in einem Durchgang, z.B. aller Rekombinationen eines Blocks.
+ * Über einer {@link DistanceMatrix} wird, wenn das Modul jdk.incubator.vector geladen ist
+ * (--add-modules jdk.incubator.vector) und die CPU Vektoren mit mindestens zwei doubles hat,
+ * die vektorisierte Variante mit Gather-Zugriffen auf die Matrix verwendet, sonst skalar
+ * wie {@link Tour#calcPathWeight(int[], Distances)}.
+ * Die vektorisierte Summe addiert in anderer Reihenfolge und kann in den letzten Bits abweichen.
+ */
+public class BatchEvaluator {
+
+    private static final String VECTOR_EVALUATOR = "naturanaloge_optimierungsverfahren.logic.VectorBatchEvaluator";
+    private static final boolean VECTOR_MODULE = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+
+    final Distances distances;
+
+    BatchEvaluator(Distances distances) {
+        this.distances = distances;
+    }
+
+    /**
+     * @param distances
+     * @return vektorisierter Evaluator, wenn möglich, sonst skalar
+     */
+    public static BatchEvaluator create(Distances distances) {
+        if (VECTOR_MODULE && distances instanceof DistanceMatrix matrix) {
+            try {
+                // erst hier laden, ohne das Modul wäre die Klasse nicht auflösbar
+                Class<?> vectorEvaluator = Class.forName(VECTOR_EVALUATOR);
+                if ((boolean) vectorEvaluator.getDeclaredMethod("isSupported").invoke(null)) {
+                    return (BatchEvaluator) vectorEvaluator.getDeclaredConstructor(DistanceMatrix.class).newInstance(matrix);
+                }
+            } catch (ReflectiveOperationException | LinkageError e) {
+                // skalar weiter
+            }
+        }
+        return scalar(distances);
+    }
+
+    /**
+     * @param distances
+     * @return skalarer Evaluator, z.B. als Vergleich in Benchmarks
+     */
+    public static BatchEvaluator scalar(Distances distances) {
+        return new BatchEvaluator(distances);
+    }
+
+    /**
+     * @param paths Permutationen der Knotenindizes, die ersten count werden bewertet
+     * @param count
+     * @param lengths erhält in [0, count) die Längen der Rundreisen
+     */
+    public void evaluate(int[][] paths, int count, double[] lengths) {
+        for (int i = 0; i < count; i++) {
+            lengths[i] = Tour.calcPathWeight(paths[i], distances);
+        }
+    }
+
+    public boolean isVectorized() {
+        return false;
+    }
+}
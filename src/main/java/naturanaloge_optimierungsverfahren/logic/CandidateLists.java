@@ -0,0 +1,81 @@
+package naturanaloge_optimierungsverfahren.logic;
+
+import java.util.stream.IntStream;
+
+/**
+ * Kandidatenlisten: für jeden Knoten die k nächsten Nachbarn, aufsteigend nach Distanz.
+ * Konstruktionsheuristiken und lokale Suche betrachten zuerst nur diese Kandidaten und fallen
+ * erst auf alle Knoten zurück, wenn alle Kandidaten bereits verwendet sind.
+ */
+public class CandidateLists {
+
+    private final int size;
+    private final int k;
+    /** Kandidaten von Knoten i stehen in [i*k, i*k+k) */
+    private final int[] candidates;
+
+    CandidateLists(int size, int k, int[] candidates) {
+        this.size = size;
+        this.k = k;
+        this.candidates = candidates;
+    }
+
+    /**
+     * Berechnet die Listen parallel über alle Knoten, bei {@link EuclideanDistances} über deren Gitter
+     * statt über alle Paare
+     * @param distances
+     * @param k gewünschte Anzahl Nachbarn, wird auf n-1 begrenzt
+     * @return Kandidatenlisten
+     */
+    public static CandidateLists build(Distances distances, int k) {
+        if (distances instanceof EuclideanDistances euclidean) return euclidean.candidateLists(k);
+        int n = distances.size();
+        int listSize = Math.max(0, Math.min(k, n - 1));
+        int[] candidates = new int[n * listSize];
+        IntStream.range(0, n).parallel().forEach(node -> nearest(distances, node, listSize, candidates));
+        return new CandidateLists(n, listSize, candidates);
+    }
+
+    /**
+     * Sortiertes Einfügen in eine Liste fester Länge, O(n·k) im schlechtesten Fall, meist O(n)
+     */
+    private static void nearest(Distances distances, int node, int k, int[] candidates) {
+        if (k == 0) return;
+        int offset = node * k;
+        double[] best = new double[k];
+        int found = 0;
+        for (int other = 0; other < distances.size(); other++) {
+            if (other == node) continue;
+            double d = distances.distance(node, other);
+            if (found == k && d >= best[k - 1]) continue;
+            int pos = found < k ? found++ : k - 1;
+            while (pos > 0 && best[pos - 1] > d) {
+                best[pos] = best[pos - 1];
+                candidates[offset + pos] = candidates[offset + pos - 1];
+                pos--;
+            }
+            best[pos] = d;
+            candidates[offset + pos] = other;
+        }
+    }
+
+    /**
+     * @param node
+     * @param rank 0 = nächster Nachbar
+     * @return Knotenindex des Kandidaten
+     */
+    public int get(int node, int rank) {
+        return candidates[node * k + rank];
+    }
+
+    /**
+     * @return Anzahl Kandidaten je Knoten
+     */
+    public int k() {
+        return k;
+    }
+
+    public int size() {
+        return size;
+    }
+}
@@ -0,0 +1,76 @@
+package naturanaloge_optimierungsverfahren.logic;
+
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.Graph;
+
+import java.util.Arrays;
+
+/**
+ * Distanzmatrix eines Graphen als flaches double-Array, indiziert über den Knotenindex.
+ * Wird einmal aus dem Graph aufgebaut, damit die Algorithmen keine Attribut-Lookups mehr
+ * auf den GraphStream-Kanten machen müssen.
+ */
+public class DistanceMatrix implements Distances {
+
+    private final int size;
+    private final double[] distances;
+
+    public DistanceMatrix(Graph g) {
+        this(g, "weight");
+    }
+
+    /**
+     * Liest die Kantengewichte aus g
+     * @param g Graph, dessen Knotenindizes 0..n-1 die Matrix indizieren
+     * @param characteristic Attribut der Kanten, das als Distanz verwendet wird
+     */
+    public DistanceMatrix(Graph g, String characteristic) {
+        size = g.getNodeCount();
+        distances = new double[size * size];
+        Arrays.fill(distances, Double.POSITIVE_INFINITY);
+        for (int i = 0; i < size; i++) {
+            distances[i * size + i] = 0.0;
+        }
+        g.edges().forEach(edge -> {
+            int source = edge.getSourceNode().getIndex();
+            int target = edge.getTargetNode().getIndex();
+            double weight = weightOf(edge, characteristic);
+            distances[source * size + target] = weight;
+            distances[target * size + source] = weight;
+        });
+    }
+
+    /**
+     * Übernimmt fertige Distanzen, z.B. aus einer eingelesenen Instanz oder für Benchmarks ohne Graph
+     * @param size Anzahl Knoten n
+     * @param distances n×n-Matrix zeilenweise, Eintrag [i*n+j] ist die Distanz von i nach j; wird übernommen
+     */
+    public DistanceMatrix(int size, double[] distances) {
+        if (distances.length != size * size) throw new IllegalArgumentException();
+        this.size = size;
+        this.distances = distances;
+    }
+
+    private static double weightOf(Edge edge, String characteristic) {
+        Object value = edge.getAttribute(characteristic);
+        if (value instanceof Number number) return number.doubleValue();
+        return Double.parseDouble(String.valueOf(value));
+    }
+
+    @Override
+    public double distance(int i, int j) {
+        return distances[i * size + j];
+    }
+
+    /**
+     * @return die Matrix selbst, nur lesen
+     */
+    double[] values() {
+        return distances;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+}
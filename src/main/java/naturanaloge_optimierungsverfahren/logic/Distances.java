@@ -0,0 +1,20 @@
+package naturanaloge_optimierungsverfahren.logic;
+
+import org.graphstream.graph.Node;
+
+/**
+ * Distanzen zwischen den Knoten 0..n-1 einer vollständigen, symmetrischen Instanz. Tour und Verfahren
+ * greifen nur über diese Schnittstelle zu, die Distanzen können vollständig gespeichert
+ * ({@link DistanceMatrix}) oder bei Bedarf berechnet werden ({@link EuclideanDistances}).
+ * Implementierungen müssen von mehreren Threads gleichzeitig lesbar sein.
+ */
+public interface Distances {
+
+    double distance(int i, int j);
+
+    int size();
+
+    default double distance(Node a, Node b) {
+        return distance(a.getIndex(), b.getIndex());
+    }
+}
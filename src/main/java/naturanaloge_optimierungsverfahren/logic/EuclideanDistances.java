@@ -0,0 +1,156 @@
+package naturanaloge_optimierungsverfahren.logic;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Distanzen zwischen Punkten in der Ebene, bei Bedarf aus den Koordinaten berechnet statt als n×n-Matrix
+ * gespeichert, der Speicherbedarf ist O(n). Die Berechnung aus zwei Koordinatenpaaren ist so billig wie ein
+ * Nachschlagen in einem Cache der nächsten Nachbarn, deshalb gibt es keinen.
+ * Die k nächsten Nachbarn für Kandidatenlisten werden über ein Gitter bestimmt, in O(n·k) statt O(n²).
+ */
+public class EuclideanDistances implements Distances {
+
+    /** Rundung: keine */
+    public static final int EXACT = 0;
+    /** Rundung: nächste ganze Zahl, TSPLIB EUC_2D */
+    public static final int ROUND = 1;
+    /** Rundung: aufrunden, TSPLIB CEIL_2D */
+    public static final int CEIL = 2;
+    /** pseudo-euklidisch, TSPLIB ATT */
+    public static final int ATT = 3;
+
+    private final int size;
+    private final double[] x;
+    private final double[] y;
+    private final int rounding;
+
+    /**
+     * @param x x-Koordinaten, werden übernommen
+     * @param y y-Koordinaten, werden übernommen
+     * @param rounding EXACT, ROUND, CEIL oder ATT
+     */
+    public EuclideanDistances(double[] x, double[] y, int rounding) {
+        if (x.length != y.length || rounding < 0 || rounding > 3) throw new IllegalArgumentException();
+        this.size = x.length;
+        this.x = x;
+        this.y = y;
+        this.rounding = rounding;
+    }
+
+    @Override
+    public double distance(int i, int j) {
+        if (i == j) return 0.0;
+        double dx = x[i] - x[j];
+        double dy = y[i] - y[j];
+        double squared = dx * dx + dy * dy;
+        return switch (rounding) {
+            case ROUND -> (int) (Math.sqrt(squared) + 0.5);
+            case CEIL -> Math.ceil(Math.sqrt(squared));
+            case ATT -> {
+                double r = Math.sqrt(squared / 10.0);
+                double t = (int) (r + 0.5);
+                yield t < r ? t + 1 : t;
+            }
+            default -> Math.sqrt(squared);
+        };
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    public double x(int i) {
+        return x[i];
+    }
+
+    public double y(int i) {
+        return y[i];
+    }
+
+    /**
+     * @param k gewünschte Anzahl Nachbarn, wird auf n-1 begrenzt
+     * @return Kandidatenlisten aus dem Gitter, ohne alle Paare zu betrachten
+     */
+    CandidateLists candidateLists(int k) {
+        int listSize = Math.max(0, Math.min(k, size - 1));
+        int[] candidates = new int[size * listSize];
+        if (listSize > 0) nearestNeighbours(listSize, candidates);
+        return new CandidateLists(size, listSize, candidates);
+    }
+
+    /**
+     * Schreibt für jeden Knoten die k nächsten Nachbarn nach euklidischer Distanz in result.
+     * Die Punkte werden in ein Gitter mit etwa zwei Punkten je Zelle einsortiert, die Suche geht in
+     * Ringen um die eigene Zelle nach außen, bis kein Punkt außerhalb mehr näher sein kann.
+     * Alle Rundungen sind monoton, die Reihenfolge gilt also auch für die gerundeten Distanzen.
+     */
+    private void nearestNeighbours(int k, int[] result) {
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < size; i++) {
+            minX = Math.min(minX, x[i]);
+            maxX = Math.max(maxX, x[i]);
+            minY = Math.min(minY, y[i]);
+            maxY = Math.max(maxY, y[i]);
+        }
+        int cells = Math.max(1, (int) Math.sqrt(size / 2.0));
+        double extent = Math.max(maxX - minX, maxY - minY);
+        double cellWidth = extent > 0 ? extent / cells : 1.0;
+        int[] cellOf = new int[size];
+        int[] cellStart = new int[cells * cells + 1];
+        for (int i = 0; i < size; i++) {
+            int cx = Math.min(cells - 1, (int) ((x[i] - minX) / cellWidth));
+            int cy = Math.min(cells - 1, (int) ((y[i] - minY) / cellWidth));
+            cellOf[i] = cy * cells + cx;
+            cellStart[cellOf[i] + 1]++;
+        }
+        for (int c = 0; c < cells * cells; c++) {
+            cellStart[c + 1] += cellStart[c];
+        }
+        int[] cellNodes = new int[size];
+        int[] fill = Arrays.copyOf(cellStart, cells * cells);
+        for (int i = 0; i < size; i++) {
+            cellNodes[fill[cellOf[i]]++] = i;
+        }
+        final double width = cellWidth;
+        IntStream.range(0, size).parallel().forEach(node -> {
+            double[] best = new double[k];
+            int offset = node * k;
+            int found = 0;
+            int cx = cellOf[node] % cells;
+            int cy = cellOf[node] / cells;
+            for (int ring = 0; ring < cells; ring++) {
+                for (int gy = Math.max(0, cy - ring); gy <= Math.min(cells - 1, cy + ring); gy++) {
+                    boolean edgeRow = gy == cy - ring || gy == cy + ring;
+                    // innere Zeilen des Rings bestehen nur aus der linken und rechten Zelle
+                    int step = edgeRow ? 1 : 2 * ring;
+                    for (int gx = cx - ring; gx <= cx + ring; gx += Math.max(1, step)) {
+                        if (gx < 0 || gx >= cells) continue;
+                        int cell = gy * cells + gx;
+                        for (int c = cellStart[cell]; c < cellStart[cell + 1]; c++) {
+                            int other = cellNodes[c];
+                            if (other == node) continue;
+                            double dx = x[node] - x[other];
+                            double dy = y[node] - y[other];
+                            double d = dx * dx + dy * dy;
+                            if (found == k && d >= best[k - 1]) continue;
+                            int pos = found < k ? found++ : k - 1;
+                            while (pos > 0 && best[pos - 1] > d) {
+                                best[pos] = best[pos - 1];
+                                result[offset + pos] = result[offset + pos - 1];
+                                pos--;
+                            }
+                            best[pos] = d;
+                            result[offset + pos] = other;
+                        }
+                    }
+                }
+                // alle Punkte außerhalb des Rings sind mindestens ring·width entfernt
+                double reach = ring * width;
+                if (found == k && best[k - 1] <= reach * reach) break;
+            }
+        });
+    }
+}
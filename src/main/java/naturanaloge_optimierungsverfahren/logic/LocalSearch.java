@@ -0,0 +1,189 @@
+package naturanaloge_optimierungsverfahren.logic;
+
+import java.util.Arrays;
+
+/**
+ * Lokale Suche mit 2-opt und Or-opt (Verschieben von Teilrouten der Länge 1 bis 3) über
+ * Kandidatenlisten und Don't-Look-Bits. Nur Knoten, an deren Kanten sich zuletzt etwas geändert hat,
+ * werden erneut untersucht, ein Durchlauf kostet dadurch etwa O(n·k).
+ * Eine Instanz hält Hilfsarrays der Größe n und darf nicht von mehreren Threads gleichzeitig verwendet werden.
+ */
+public class LocalSearch {
+
+    private static final double EPSILON = 1e-10;
+    private static final int MAX_SEGMENT_LENGTH = 3;
+
+    private final Distances distances;
+    private final CandidateLists candidates;
+    private final MutableTour tour;
+    private final int n;
+    /** Knoten in der Warteschlange, alle anderen haben ihr Don't-Look-Bit gesetzt */
+    private final boolean[] queued;
+    private final int[] queue;
+    private int head;
+    private int queueSize;
+    private final int[] segment = new int[MAX_SEGMENT_LENGTH];
+
+    public LocalSearch(Distances distances, CandidateLists candidates) {
+        if (candidates.size() != distances.size()) throw new IllegalArgumentException();
+        this.distances = distances;
+        this.candidates = candidates;
+        n = distances.size();
+        tour = new MutableTour(n);
+        queued = new boolean[n];
+        queue = new int[n];
+    }
+
+    /**
+     * Verbessert start mit 2-opt- und Or-opt-Zügen
+     * @param start
+     * @param maxMoves höchstens so viele verbessernde Züge, 0 = bis zum lokalen Optimum
+     * @return verbesserte Tour, start selbst wenn kein Zug gefunden wurde
+     */
+    public Tour improve(Tour start, int maxMoves) {
+        if (n < 5) return start;
+        tour.load(start.getPath());
+        head = 0;
+        queueSize = 0;
+        Arrays.fill(queued, false);
+        for (int i = 0; i < n; i++) {
+            push(tour.at(i));
+        }
+        int moves = 0;
+        while (queueSize > 0 && (maxMoves == 0 || moves < maxMoves)) {
+            int a = poll();
+            if (improveTwoOpt(a) || improveOrOpt(a)) {
+                moves++;
+                push(a);
+            }
+        }
+        if (moves == 0) return start;
+        int[] path = new int[n];
+        tour.store(path);
+        return new Tour(path, distances);
+    }
+
+    private void push(int node) {
+        if (queued[node]) return;
+        queued[node] = true;
+        int tail = head + queueSize;
+        queue[tail >= n ? tail - n : tail] = node;
+        queueSize++;
+    }
+
+    private int poll() {
+        int node = queue[head];
+        if (++head == n) head = 0;
+        queueSize--;
+        queued[node] = false;
+        return node;
+    }
+
+    private double d(int a, int b) {
+        return distances.distance(a, b);
+    }
+
+    /**
+     * Ersetzt (a,b) und (c,d) durch (a,c) und (b,d), wobei c unter den Kandidaten von a gesucht wird
+     * und b einmal Nachfolger und einmal Vorgänger von a ist
+     */
+    private boolean improveTwoOpt(int a) {
+        for (int direction = 0; direction < 2; direction++) {
+            int b = direction == 0 ? tour.next(a) : tour.prev(a);
+            double dab = d(a, b);
+            for (int rank = 0; rank < candidates.k(); rank++) {
+                int c = candidates.get(a, rank);
+                double dac = d(a, c);
+                if (dac >= dab - EPSILON) break;
+                int dd = direction == 0 ? tour.next(c) : tour.prev(c);
+                if (c == b || dd == a) continue;
+                double gain = dab + d(c, dd) - dac - d(b, dd);
+                if (gain > EPSILON) {
+                    tour.twoOptMove(a, b, c, dd);
+                    push(b);
+                    push(c);
+                    push(dd);
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Verschiebt die bei a beginnende Teilroute s1..s2 (in beiden Laufrichtungen) zwischen zwei
+     * benachbarte Knoten c und e, wahlweise umgedreht
+     */
+    private boolean improveOrOpt(int a) {
+        for (int direction = 0; direction < 2; direction++) {
+            int s2 = a;
+            for (int length = 1; length <= MAX_SEGMENT_LENGTH && length + 3 <= n; length++) {
+                if (length > 1) s2 = step(s2, direction);
+                segment[length - 1] = s2;
+                int p = step(a, 1 - direction);
+                int nx = step(s2, direction);
+                double removeGain = d(p, a) + d(s2, nx) - d(p, nx);
+                if (removeGain <= EPSILON) continue;
+                if (tryInsert(a, s2, a, length, p, nx, removeGain, direction)
+                        || (length > 1 && tryInsert(a, s2, s2, length, p, nx, removeGain, direction))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private int step(int node, int direction) {
+        return direction == 0 ? tour.next(node) : tour.prev(node);
+    }
+
+    private boolean inSegment(int node, int length) {
+        for (int i = 0; i < length; i++) {
+            if (segment[i] == node) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Sucht unter den Kandidaten von end eine Kante (c,e), zwischen die die Teilroute so eingefügt
+     * wird, dass end neben c liegt
+     */
+    private boolean tryInsert(int s1, int s2, int end, int length, int p, int nx, double removeGain, int direction) {
+        int other = end == s1 ? s2 : s1;
+        for (int rank = 0; rank < candidates.k(); rank++) {
+            int c = candidates.get(end, rank);
+            double dc = d(end, c);
+            if (dc >= removeGain - EPSILON) break;
+            if (inSegment(c, length)) continue;
+            for (int side = 0; side < 2; side++) {
+                int e = side == 0 ? tour.next(c) : tour.prev(c);
+                if (inSegment(e, length)) continue;
+                double gain = removeGain + d(c, e) - dc - d(other, e);
+                if (gain > EPSILON) {
+                    moveSegment(s1, s2, p, nx, c, e, end, direction);
+                    push(p);
+                    push(nx);
+                    push(c);
+                    push(e);
+                    push(s1);
+                    push(s2);
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Or-opt-Zug als Folge von 2-opt-Zügen: erst (p,s1),(c,e) tauschen, dann (p,t3),(s2,nx), danach
+     * hängt s2 an t3 und s1 an t4; liegt end noch nicht neben c, wird die Teilroute noch umgedreht
+     */
+    private void moveSegment(int s1, int s2, int p, int nx, int c, int e, int end, int direction) {
+        int t3 = step(c, direction) == e ? c : e;
+        int t4 = t3 == c ? e : c;
+        tour.twoOptMove(p, s1, t3, t4);
+        tour.twoOptMove(p, t3, nx, s2);
+        boolean attached = (end == s2 && t3 == c) || (end == s1 && t4 == c);
+        if (!attached) tour.twoOptMove(t3, s2, s1, t4);
+    }
+}
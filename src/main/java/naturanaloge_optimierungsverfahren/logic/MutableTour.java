@@ -0,0 +1,114 @@
+package naturanaloge_optimierungsverfahren.logic;
+
+/**
+ * Veränderbare Rundreise als Array mit Positionsindex für die lokale Suche.
+ * Nachfolger, Vorgänger und Position eines Knotens kosten O(1), ein 2-opt-Zug dreht immer den
+ * kürzeren der beiden Teilwege um und kostet damit höchstens n/2 Vertauschungen.
+ * Die Laufrichtung kann sich bei einem Zug umkehren, Züge werden deshalb über Kanten beschrieben.
+ */
+public class MutableTour {
+
+    private final int[] tour;
+    private final int[] position;
+    private final int n;
+
+    public MutableTour(int numberOfNodes) {
+        n = numberOfNodes;
+        tour = new int[n];
+        position = new int[n];
+    }
+
+    /**
+     * Übernimmt path als aktuelle Rundreise
+     * @param path Permutation der Knotenindizes
+     */
+    public void load(int[] path) {
+        if (path.length != n) throw new IllegalArgumentException();
+        for (int i = 0; i < n; i++) {
+            tour[i] = path[i];
+            position[path[i]] = i;
+        }
+    }
+
+    /**
+     * Schreibt die aktuelle Rundreise in target
+     * @param target Array der Länge n
+     */
+    public void store(int[] target) {
+        System.arraycopy(tour, 0, target, 0, n);
+    }
+
+    public int size() {
+        return n;
+    }
+
+    public int next(int node) {
+        int p = position[node] + 1;
+        return tour[p == n ? 0 : p];
+    }
+
+    public int prev(int node) {
+        int p = position[node] - 1;
+        return tour[p < 0 ? n - 1 : p];
+    }
+
+    public int position(int node) {
+        return position[node];
+    }
+
+    public int at(int index) {
+        return tour[index];
+    }
+
+    /**
+     * @return true, wenn b auf dem Weg von a vorwärts zu c liegt (a und c eingeschlossen)
+     */
+    public boolean between(int a, int b, int c) {
+        int pa = position[a], pb = position[b], pc = position[c];
+        if (pa <= pc) return pa <= pb && pb <= pc;
+        return pb >= pa || pb <= pc;
+    }
+
+    /**
+     * 2-opt-Zug: entfernt die Kanten (a,b) und (c,d) und fügt (a,c) und (b,d) ein.
+     * Entweder ist b Nachfolger von a und d Nachfolger von c oder beides Vorgänger.
+     */
+    public void twoOptMove(int a, int b, int c, int d) {
+        if (next(a) == b) {
+            if (next(c) != d) throw new IllegalStateException("invalid 2-opt move");
+            reverse(b, c);
+        } else {
+            if (prev(a) != b || prev(c) != d) throw new IllegalStateException("invalid 2-opt move");
+            reverse(a, d);
+        }
+    }
+
+    /**
+     * Kehrt den Weg von from vorwärts bis to um. Ist der Weg länger als die halbe Tour, wird
+     * stattdessen der Rest umgekehrt, was dieselbe Rundreise in Gegenrichtung ergibt.
+     */
+    public void reverse(int from, int to) {
+        int i = position[from];
+        int j = position[to];
+        int length = j - i;
+        if (length < 0) length += n;
+        length++;
+        if (2 * length > n) {
+            int newI = j + 1;
+            int newJ = i - 1;
+            i = newI == n ? 0 : newI;
+            j = newJ < 0 ? n - 1 : newJ;
+            length = n - length;
+        }
+        for (int k = 0; k < length / 2; k++) {
+            int a = tour[i];
+            int b = tour[j];
+            tour[i] = b;
+            position[b] = i;
+            tour[j] = a;
+            position[a] = j;
+            if (++i == n) i = 0;
+            if (--j < 0) j = n - 1;
+        }
+    }
+}
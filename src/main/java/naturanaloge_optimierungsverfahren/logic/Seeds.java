@@ -0,0 +1,32 @@
+package naturanaloge_optimierungsverfahren.logic;
+
+/**
+ * Ableitung von Seeds und Zufallsschlüsseln aus einem 64-Bit-Wert, gemeinsam für alle Verfahren,
+ * den Tour-Hash und den ExperimentRunner
+ */
+public final class Seeds {
+
+    /** Schrittweite von SplitMix64, 2^64 / goldener Schnitt */
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private Seeds() {
+    }
+
+    /**
+     * Finalizer aus MurmurHash3 (fmix64), bijektiv, benachbarte Eingaben ergeben unabhängig wirkende Ausgaben
+     */
+    public static long mix(long z) {
+        z = (z ^ (z >>> 33)) * 0xFF51AFD7ED558CCDL;
+        z = (z ^ (z >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return z ^ (z >>> 33);
+    }
+
+    /**
+     * @param seed
+     * @param index z.B. Generation oder Iteration
+     * @return Seed des index-ten Teilstroms, nur von seed und index abhängig
+     */
+    public static long derive(long seed, long index) {
+        return mix(seed + (index + 1) * GOLDEN_GAMMA);
+    }
+}
@@ -1,69 +1,122 @@
 package naturanaloge_optimierungsverfahren.logic;
 
 import naturanaloge_optimierungsverfahren.generator.CompleteGraphGenerator;
-import org.graphstream.graph.Edge;
 import org.graphstream.graph.Graph;
 import org.graphstream.graph.Node;
 
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.random.RandomGenerator;
 
+/**
+ * Rundreise als Permutation der Knotenindizes 0..n-1 über einer Distanzfunktion ({@link Distances}).
+ * Die Kante vom letzten zurück zum ersten Knoten ist implizit, GraphStream-Knoten werden
+ * nur für Ausgabe und Darstellung erzeugt ({@link #toNodePath(Graph)}).
+ * Der Hash ({@link #getHash()}) ist die Summe eines Zufallsschlüssels je ungerichteter Kante und damit
+ * unabhängig von Startknoten und Laufrichtung, Mutationen aktualisieren ihn wie die Länge über die
+ * geänderten Kanten.
+ */
 public class Tour implements Comparable<Tour> {
 
     private final double fitness;
 
-    private double pathWeight;
-    private final Node[] nodePath;
-    private final Edge[] edgePath;
+    private final double pathWeight;
+    private final long hash;
+    private final int[] path;
+    private final Distances distances;
 
 
     /**
-     * Initialisiert random Rundreise für g
-     * @param g
+     * Initialisiert random Rundreise über alle Knoten von distances
+     * @param distances
+     * @param random
      */
-    public Tour(Graph g){
-        if (g.getEdgeCount() != (g.getNodeCount()*(g.getNodeCount()-1))/2) throw new IllegalArgumentException("g must be complete");
-        List<Node> nodes = g.nodes().collect(Collectors.toList());
-        int numberOfNodes = g.getNodeCount();
-        Random random = new Random();
-        nodePath = new Node[numberOfNodes+1];
-        edgePath = new Edge[numberOfNodes];
-        for (int i = 0; i < numberOfNodes; i++){
-            Node current = nodes.get(random.nextInt(nodes.size()));
-            if (i == 0) {
-                nodePath[0] = current;
-                nodePath[numberOfNodes] = current;
-            } else {
-                nodePath[i] = current;
-                Edge edge = nodePath[i-1].getEdgeBetween(current);
-                edgePath[i-1] = edge;
-            }
-            nodes.remove(current);
+    public Tour(Distances distances, RandomGenerator random){
+        int numberOfNodes = distances.size();
+        this.distances = distances;
+        path = new int[numberOfNodes];
+        for (int i = 0; i < numberOfNodes; i++) {
+            path[i] = i;
         }
-        Node endNode = nodePath[numberOfNodes];
-        Edge edge = nodePath[numberOfNodes-1].getEdgeBetween(endNode);
-        edgePath[numberOfNodes-1] = edge;
-        calcPathWeight("weight");
+        for (int i = numberOfNodes - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int temp = path[i];
+            path[i] = path[j];
+            path[j] = temp;
+        }
+        pathWeight = calcPathWeight(path, distances);
+        hash = calcHash(path);
         fitness = 1 / pathWeight;
     }
 
-    public Tour(Node[] nodePath) {
-        this.nodePath = nodePath;
-        edgePath = new Edge[nodePath.length-1];
-        for (int i = 1; i < nodePath.length; i++) {
-            Edge edge = nodePath[i-1].getEdgeBetween(nodePath[i]);
-            edgePath[i-1] = edge;
-        }
-        calcPathWeight("weight");
+    /**
+     * @param path Permutation der Knotenindizes, wird von der Tour übernommen und darf danach nicht mehr verändert werden
+     * @param distances
+     */
+    public Tour(int[] path, Distances distances) {
+        this.path = path;
+        this.distances = distances;
+        pathWeight = calcPathWeight(path, distances);
+        hash = calcHash(path);
         fitness = 1 / pathWeight;
     }
 
-    public void calcPathWeight(String characteristic) {
-        double d = 0.0;
-        for (Edge l : edgePath) {
-            d += (double) l.getAttribute(characteristic, Number.class);
+    /**
+     * Tour mit bereits bekannter Länge und bekanntem Hash, z.B. aus Elternlänge plus Delta einer Mutation
+     * oder aus einem Fitness-Cache
+     * @param path Permutation der Knotenindizes, wird von der Tour übernommen
+     * @param distances
+     * @param pathWeight
+     * @param hash {@link #calcHash(int[])} von path
+     */
+    public Tour(int[] path, Distances distances, double pathWeight, long hash) {
+        this.path = path;
+        this.distances = distances;
+        this.pathWeight = pathWeight;
+        this.hash = hash;
+        fitness = 1 / pathWeight;
+    }
+
+    /**
+     * Übernimmt einen GraphStream-Pfad, der erste Knoten darf am Ende wiederholt werden
+     * @param nodePath
+     * @param distances
+     * @return Tour über die Indizes der Knoten
+     */
+    public static Tour fromNodePath(Node[] nodePath, Distances distances) {
+        int numberOfNodes = distances.size();
+        if (nodePath.length != numberOfNodes && nodePath.length != numberOfNodes + 1) throw new IllegalArgumentException();
+        int[] path = new int[numberOfNodes];
+        for (int i = 0; i < numberOfNodes; i++) {
+            path[i] = nodePath[i].getIndex();
+        }
+        return new Tour(path, distances);
+    }
+
+    public static double calcPathWeight(int[] path, Distances distances) {
+        double d = distances.distance(path[path.length-1], path[0]);
+        for (int i = 1; i < path.length; i++) {
+            d += distances.distance(path[i-1], path[i]);
         }
-        pathWeight = d;
+        return d;
+    }
+
+    /**
+     * @param path
+     * @return Hash über die ungerichteten Kanten der Rundreise, gleich für alle Rotationen und beide Laufrichtungen
+     */
+    public static long calcHash(int[] path) {
+        long h = edgeKey(path[path.length - 1], path[0]);
+        for (int i = 1; i < path.length; i++) {
+            h += edgeKey(path[i - 1], path[i]);
+        }
+        return h;
+    }
+
+    /**
+     * Symmetrischer Zufallsschlüssel einer Kante (Zobrist-Hashing ohne Tabelle)
+     */
+    private static long edgeKey(int a, int b) {
+        return Seeds.mix(Seeds.derive(0, a) + Seeds.derive(0, b));
     }
 
     @Override
@@ -79,176 +132,482 @@ public class Tour implements Comparable<Tour> {
         return pathWeight;
     }
 
-//    @Override
-//    public boolean equals(Object o) {
-//        if (this == o) return true;
-//        if (o == null || getClass() != o.getClass()) return false;
-//        Tour tour = (Tour) o;
-//        return Arrays.equals(nodePath, tour.nodePath);
-//    }
+    public long getHash() {
+        return hash;
+    }
+
+    /**
+     * @return Permutation der Knotenindizes, nur lesend verwenden
+     */
+    public int[] getPath() {
+        return path;
+    }
+
+    public int size() {
+        return path.length;
+    }
+
+    /**
+     * Erzeugt den geschlossenen Knotenpfad in g (erster Knoten am Ende wiederholt), z.B. zum Darstellen
+     * @param g Graph, aus dem distances aufgebaut wurde
+     * @return Knotenpfad
+     */
+    public Node[] toNodePath(Graph g) {
+        Node[] nodePath = new Node[path.length + 1];
+        for (int i = 0; i < path.length; i++) {
+            nodePath[i] = g.getNode(path[i]);
+        }
+        nodePath[path.length] = nodePath[0];
+        return nodePath;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Tour tour = (Tour) o;
+        return hash == tour.hash && sameCycle(tour.path);
+    }
 
     @Override
     public int hashCode() {
-        return Arrays.hashCode(nodePath);
+        return Long.hashCode(hash);
+    }
+
+    /**
+     * @return true, wenn other dieselbe Rundreise beschreibt, ggf. rotiert oder umgekehrt
+     */
+    private boolean sameCycle(int[] other) {
+        int n = path.length;
+        if (other.length != n) return false;
+        int offset = 0;
+        while (offset < n && other[offset] != path[0]) offset++;
+        if (offset == n) return false;
+        boolean forward = true;
+        boolean backward = true;
+        for (int i = 0; i < n && (forward || backward); i++) {
+            if (other[(offset + i) % n] != path[i]) forward = false;
+            if (other[(offset - i + n) % n] != path[i]) backward = false;
+        }
+        return forward || backward;
     }
 
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
-        int ct = 0;
-        for (Node n : nodePath) {
-            sb.append(n.getId());
-            if (ct < edgePath.length) {
-                sb.append(" - ").append(edgePath[ct].getId()).append(" - ");
-            }
-            ct++;
+        for (int node : path) {
+            sb.append(node).append(" - ");
         }
+        sb.append(path[0]);
         sb.append(" || - path weight: ").append(pathWeight);
         sb.append(" || - fitness: ").append(fitness);
         return sb.toString();
     }
 
-    public Tour recombination(int recombinationCase, Tour t2) {
-        Tour newTour = null;
-        switch (recombinationCase){
-            case 0 -> newTour = orderCrossover(t2);
-            case 1 -> newTour = cycleCrossover(t2);
+    /**
+     * Hilfsarrays für die Operatoren, damit pro Nachkomme nur das Ergebnis-Array angelegt wird.
+     * Eine Instanz darf nicht von mehreren Threads gleichzeitig verwendet werden.
+     */
+    public static class Workspace {
+        /** Bitmenge über die Knoten, z.B. bereits übernommene Knoten */
+        private final long[] visited;
+        /** Position eines Knotens in einem Elternpfad */
+        private final int[] position;
+        private final int[] buffer;
+        /** Nachbarn je Knoten aus beiden Eltern (vier Plätze), nur für Edge Recombination */
+        private int[] neighbours;
+        /** vom letzten Mutationszug entfernte und eingefügte Kanten, je zwei Knoten */
+        private final int[] removedEdges = new int[6];
+        private final int[] addedEdges = new int[6];
+        private int changedEdges;
+
+        public Workspace(int numberOfNodes) {
+            visited = new long[(numberOfNodes + 63) >>> 6];
+            position = new int[numberOfNodes];
+            buffer = new int[numberOfNodes];
         }
-        return newTour;
-    }
 
-    private Tour cycleCrossover(Tour t2) {
-        if (nodePath.length != t2.nodePath.length) throw new IllegalArgumentException();
-        Set<Node> visited = new HashSet<>();
-        Node[] newTour = new Node[nodePath.length];
-        Random random = new Random();
-        int currentIndex = random.nextInt(nodePath.length-1);
-        Node currentNode = nodePath[currentIndex];
+        private void clearVisited() {
+            Arrays.fill(visited, 0L);
+        }
+
+        private void visit(int node) {
+            visited[node >>> 6] |= 1L << node;
+        }
 
-        while (!visited.contains(currentNode)){
-            visited.add(currentNode);
-            newTour[currentIndex] = t2.nodePath[currentIndex];
-            currentIndex = findIndexOfNode(t2.nodePath[currentIndex]);
-            currentNode = nodePath[currentIndex];
+        private boolean isVisited(int node) {
+            return (visited[node >>> 6] & (1L << node)) != 0;
         }
-        for (int i = 0; i < newTour.length - 1; i++) {
-            if (newTour[i] == null) newTour[i] = nodePath[i];
+
+        /**
+         * @return Längenänderung durch den letzten Mutationszug
+         */
+        public double lengthDelta(Distances distances) {
+            double delta = 0.0;
+            for (int e = 0; e < 2 * changedEdges; e += 2) {
+                delta += distances.distance(addedEdges[e], addedEdges[e + 1])
+                        - distances.distance(removedEdges[e], removedEdges[e + 1]);
+            }
+            return delta;
         }
-        newTour[newTour.length-1] = newTour[0];
-        return new Tour(newTour);
-    }
 
-    private int findIndexOfNode(Node node) {
-        for (int i = 0; i < nodePath.length; i++) {
-            if (nodePath[i].equals(node)) return i;
+        /**
+         * @return Änderung von {@link Tour#calcHash(int[])} durch den letzten Mutationszug
+         */
+        public long hashDelta() {
+            long delta = 0L;
+            for (int e = 0; e < 2 * changedEdges; e += 2) {
+                delta += edgeKey(addedEdges[e], addedEdges[e + 1]) - edgeKey(removedEdges[e], removedEdges[e + 1]);
+            }
+            return delta;
+        }
+
+        /**
+         * Vermerkt, dass die Kante (a,b) durch (c,d) ersetzt wird
+         */
+        private void replaceEdge(int a, int b, int c, int d) {
+            removedEdges[2 * changedEdges] = a;
+            removedEdges[2 * changedEdges + 1] = b;
+            addedEdges[2 * changedEdges] = c;
+            addedEdges[2 * changedEdges + 1] = d;
+            changedEdges++;
         }
-        return -1;
     }
 
     /**
      * Rekombination
+     * @param recombinationCase 0 = Order Crossover, 1 = Cycle Crossover, 2 = Partially Mapped Crossover,
+     *                          3 = Edge Recombination
      * @param t2
+     * @param child Zielarray der Länge n, wird von der neuen Tour übernommen
+     * @param workspace
+     * @param random
      * @return new Tour
      */
-    public Tour orderCrossover(Tour t2) {
-        if (nodePath.length != t2.nodePath.length) throw new IllegalArgumentException();
-        int tourPartSize = this.nodePath.length / 2;
-        Node[] newTour = new Node[nodePath.length];
-        Random random = new Random();
-        int start = random.nextInt(nodePath.length-tourPartSize-1);
-        List<Node> toDelete = new ArrayList<>(); // Nodes, die wir aus t2 "löschen"
+    public Tour recombination(int recombinationCase, Tour t2, int[] child, Workspace workspace, RandomGenerator random) {
+        crossover(recombinationCase, t2, child, workspace, random);
+        return new Tour(child, distances);
+    }
+
+    /**
+     * Rekombination ohne Bewertung, z.B. um den Nachkommen vorher über {@link #calcHash(int[])} nachzuschlagen
+     * @param recombinationCase siehe {@link #recombination(int, Tour, int[], Workspace, RandomGenerator)}
+     * @param t2
+     * @param child Zielarray der Länge n
+     * @param workspace
+     * @param random
+     */
+    public void crossover(int recombinationCase, Tour t2, int[] child, Workspace workspace, RandomGenerator random) {
+        crossover(recombinationCase, path, t2.path, child, workspace, random);
+    }
+
+    /**
+     * Rekombination direkt auf Pfaden, z.B. aus Zeilen eines {@code PopulationStore} ohne Tour-Objekte
+     * @param recombinationCase siehe {@link #recombination(int, Tour, int[], Workspace, RandomGenerator)}
+     * @param path erster Elternpfad
+     * @param other zweiter Elternpfad
+     * @param child Zielarray der Länge n
+     * @param workspace
+     * @param random
+     */
+    public static void crossover(int recombinationCase, int[] path, int[] other, int[] child, Workspace workspace,
+                                 RandomGenerator random) {
+        if (path.length != other.length) throw new IllegalArgumentException();
+        switch (recombinationCase){
+            case 0 -> orderCrossover(path, other, child, workspace, random);
+            case 1 -> cycleCrossover(path, other, child, workspace, random);
+            case 2 -> partiallyMappedCrossover(path, other, child, workspace, random);
+            case 3 -> edgeRecombination(path, other, child, workspace, random);
+            default -> throw new IllegalArgumentException();
+        }
+    }
+
+    /**
+     * Schreibt die Position jedes Knotens von path nach workspace.position
+     */
+    private static void indexPositions(int[] path, Workspace workspace) {
+        for (int i = 0; i < path.length; i++) {
+            workspace.position[path[i]] = i;
+        }
+    }
+
+    /**
+     * Ein Zyklus ab einem zufälligen Index kommt aus t2, alle übrigen Positionen aus dieser Tour, O(n)
+     */
+    private static void cycleCrossover(int[] path, int[] other, int[] child, Workspace workspace, RandomGenerator random) {
+        indexPositions(path, workspace);
+        workspace.clearVisited(); // hier über Indizes statt Knoten
+        int currentIndex = random.nextInt(path.length);
+
+        while (!workspace.isVisited(currentIndex)){
+            workspace.visit(currentIndex);
+            child[currentIndex] = other[currentIndex];
+            currentIndex = workspace.position[other[currentIndex]];
+        }
+        for (int i = 0; i < child.length; i++) {
+            if (!workspace.isVisited(i)) child[i] = path[i];
+        }
+    }
+
+    /**
+     * Die halbe Tour ab einem zufälligen Index bleibt erhalten, die übrigen Knoten folgen in der Reihenfolge von t2, O(n)
+     */
+    private static void orderCrossover(int[] path, int[] other, int[] child, Workspace workspace, RandomGenerator random) {
+        int tourPartSize = (path.length + 1) / 2;
+        workspace.clearVisited(); // Knoten, die wir aus t2 "löschen"
+        int start = random.nextInt(path.length - tourPartSize);
         for (int i = start; i < start + tourPartSize; i++) {
-            newTour[i] = nodePath[i];
-            toDelete.add(nodePath[i]);
-        }
-        int spotsToFill = nodePath.length - tourPartSize - 1; // -1, weil letztes Element wird extern eingefügt
-        int currentNullIndex = 0;
-        for (int i = 0; i < t2.nodePath.length-1; i++){
-            if (spotsToFill == 0) break;
-            if (!toDelete.contains(t2.nodePath[i])) {
-                while (newTour[currentNullIndex++] != null);
-                newTour[currentNullIndex-1] = t2.nodePath[i];
-                spotsToFill--;
+            child[i] = path[i];
+            workspace.visit(path[i]);
+        }
+        int currentIndex = 0;
+        for (int node : other) {
+            if (workspace.isVisited(node)) continue;
+            if (currentIndex == start) currentIndex += tourPartSize;
+            child[currentIndex++] = node;
+        }
+    }
+
+    /**
+     * Ein zufälliger Abschnitt kommt aus dieser Tour, die übrigen Positionen aus t2. Ein Knoten von t2,
+     * der schon im Abschnitt liegt, wird über die Zuordnung Abschnitt -> t2 ersetzt, bis er frei ist.
+     * Jede Position des Abschnitts wird dabei höchstens einmal durchlaufen, O(n)
+     */
+    private static void partiallyMappedCrossover(int[] path, int[] other, int[] child, Workspace workspace, RandomGenerator random) {
+        int n = path.length;
+        int start = random.nextInt(n);
+        int end = random.nextInt(start, n) + 1;
+        indexPositions(path, workspace);
+        workspace.clearVisited();
+        for (int i = start; i < end; i++) {
+            child[i] = path[i];
+            workspace.visit(path[i]);
+        }
+        for (int i = 0; i < n; i++) {
+            if (i == start) {
+                i = end - 1;
+                continue;
             }
+            int node = other[i];
+            while (workspace.isVisited(node)) {
+                node = other[workspace.position[node]];
+            }
+            child[i] = node;
         }
-        newTour[newTour.length-1] = newTour[0];
-        return new Tour(newTour);
     }
 
+    /**
+     * Edge Recombination: der Nachkomme besteht möglichst nur aus Kanten der Eltern. Vom aktuellen Knoten
+     * geht es bevorzugt über eine Kante, die beide Eltern enthalten, sonst zum Nachbarn mit den wenigsten
+     * offenen Nachbarn. Ohne offenen Nachbarn wird ein zufälliger freier Knoten gewählt, O(n)
+     */
+    private static void edgeRecombination(int[] path, int[] other, int[] child, Workspace workspace, RandomGenerator random) {
+        int n = path.length;
+        if (workspace.neighbours == null) workspace.neighbours = new int[4 * n];
+        int[] neighbours = workspace.neighbours;
+        for (int i = 0; i < n; i++) {
+            int prev = i == 0 ? n - 1 : i - 1;
+            int next = i == n - 1 ? 0 : i + 1;
+            neighbours[4 * path[i]] = path[prev];
+            neighbours[4 * path[i] + 1] = path[next];
+            neighbours[4 * other[i] + 2] = other[prev];
+            neighbours[4 * other[i] + 3] = other[next];
+        }
+        // freie Knoten in buffer, position ist der Index darin, Entnahme durch Tausch mit dem letzten
+        int[] open = workspace.buffer;
+        int[] openIndex = workspace.position;
+        for (int i = 0; i < n; i++) {
+            open[i] = i;
+            openIndex[i] = i;
+        }
+        int openCount = n;
+        workspace.clearVisited();
 
-    public Tour mutation(int mutationCase) {
-        Node[] newTour = nodePath.clone();
-        Random random = new Random();
+        int current = path[random.nextInt(n)];
+        for (int k = 0; k < n; k++) {
+            child[k] = current;
+            workspace.visit(current);
+            int last = open[--openCount];
+            open[openIndex[current]] = last;
+            openIndex[last] = openIndex[current];
+            if (openCount == 0) break;
+
+            int next = -1;
+            int fewest = Integer.MAX_VALUE;
+            int ties = 0;
+            for (int slot = 0; slot < 4; slot++) {
+                int candidate = neighbours[4 * current + slot];
+                if (workspace.isVisited(candidate)) continue;
+                if (slot >= 2 && (candidate == neighbours[4 * current] || candidate == neighbours[4 * current + 1])) {
+                    next = candidate; // gemeinsame Kante
+                    break;
+                }
+                int degree = openNeighbours(candidate, neighbours, workspace);
+                if (degree < fewest) {
+                    fewest = degree;
+                    next = candidate;
+                    ties = 1;
+                } else if (degree == fewest && random.nextInt(++ties) == 0) {
+                    next = candidate;
+                }
+            }
+            current = next >= 0 ? next : open[random.nextInt(openCount)];
+        }
+    }
+
+    private static int openNeighbours(int node, int[] neighbours, Workspace workspace) {
+        int count = 0;
+        for (int slot = 0; slot < 4; slot++) {
+            int neighbour = neighbours[4 * node + slot];
+            if (workspace.isVisited(neighbour)) continue;
+            boolean duplicate = false;
+            for (int earlier = 0; earlier < slot; earlier++) {
+                if (neighbours[4 * node + earlier] == neighbour) duplicate = true;
+            }
+            if (!duplicate) count++;
+        }
+        return count;
+    }
+
+
+    /**
+     * Mutation, Länge und Hash des Nachkommen ergeben sich aus den eigenen Werten plus der Änderung
+     * durch die ersetzten Kanten (symmetrische Distanzen vorausgesetzt)
+     * @param mutationCase 0 = Inversion, 1 = Vertauschen, 2 = Verschieben
+     * @param child Zielarray der Länge n, wird von der neuen Tour übernommen
+     * @param workspace
+     * @param random
+     * @return new Tour
+     */
+    public Tour mutation(int mutationCase, int[] child, Workspace workspace, RandomGenerator random) {
+        mutate(mutationCase, path, child, workspace, random);
+        return new Tour(child, distances, pathWeight + workspace.lengthDelta(distances), hash + workspace.hashDelta());
+    }
+
+    /**
+     * Mutation direkt auf Pfaden, die ersetzten Kanten stehen danach in workspace
+     * ({@link Workspace#lengthDelta(Distances)}, {@link Workspace#hashDelta()})
+     * @param mutationCase siehe {@link #mutation(int, int[], Workspace, RandomGenerator)}
+     * @param path Elternpfad
+     * @param child Zielarray der Länge n
+     * @param workspace
+     * @param random
+     */
+    public static void mutate(int mutationCase, int[] path, int[] child, Workspace workspace, RandomGenerator random) {
+        System.arraycopy(path, 0, child, 0, path.length);
+        workspace.changedEdges = 0;
         switch (mutationCase) {
-            case 0 -> invertPathPart(newTour, random);
-            case 1 -> switchNodes(newTour, random);
-            case 2 -> shift(newTour, random);
+            case 0 -> invertPathPart(path, child, workspace, random);
+            case 1 -> switchNodes(path, child, workspace, random);
+            case 2 -> shift(path, child, workspace, random);
+            default -> throw new IllegalArgumentException();
         }
-        return new Tour(newTour);
+    }
+
+    private static int predecessor(int[] path, int index) {
+        return path[index == 0 ? path.length - 1 : index - 1];
+    }
+
+    private static int successor(int[] path, int index) {
+        return path[index == path.length - 1 ? 0 : index + 1];
     }
 
     /**
      * Vertauschen zweier aufeinanderfolgender Knoten
      * @param newTour
+     * @param workspace nimmt die ersetzten Kanten auf
      * @param random
      */
-    private void switchNodes(Node[] newTour, Random random) {
-        int switchIndex = random.nextInt(nodePath.length-2);
-        Node temp = newTour[switchIndex];
+    private static void switchNodes(int[] path, int[] newTour, Workspace workspace, RandomGenerator random) {
+        int switchIndex = random.nextInt(path.length-1);
+        int temp = newTour[switchIndex];
         newTour[switchIndex] = newTour[switchIndex+1];
         newTour[switchIndex+1] = temp;
 
-        newTour[newTour.length-1] = newTour[0];
+        int before = predecessor(path, switchIndex);
+        int first = path[switchIndex];
+        int second = path[switchIndex+1];
+        int after = successor(path, switchIndex+1);
+        if (before == second) return; // n == 2, Rundreise bleibt gleich
+        workspace.replaceEdge(before, first, before, second);
+        workspace.replaceEdge(second, after, first, after);
     }
 
     /**
-     * Invertieren einer Teilroute
+     * Invertieren einer Teilroute (2-opt-Zug)
      * @param newTour
+     * @param workspace nimmt die ersetzten Kanten auf
      * @param random
      */
-    private void invertPathPart(Node[] newTour, Random random) {
-        int pathPartSize = random.nextInt(3, nodePath.length);
-        int start = random.nextInt(nodePath.length-pathPartSize);
+    private static void invertPathPart(int[] path, int[] newTour, Workspace workspace, RandomGenerator random) {
+        int pathPartSize = random.nextInt(3, path.length+1);
+        int start = random.nextInt(path.length+1-pathPartSize);
         int end = start + pathPartSize - 1;
-        while (start < end) {
-            Node temp = newTour[start];
-            newTour[start] = newTour[end];
-            newTour[end] = temp;
-            start++;
-            end--;
+
+        int before = predecessor(path, start);
+        int first = path[start];
+        int last = path[end];
+        int after = successor(path, end);
+
+        int i = start;
+        int j = end;
+        while (i < j) {
+            int temp = newTour[i];
+            newTour[i] = newTour[j];
+            newTour[j] = temp;
+            i++;
+            j--;
         }
-        newTour[newTour.length-1] = newTour[0];
+        if (pathPartSize >= path.length - 1) return; // ganze Rundreise umgedreht
+        workspace.replaceEdge(before, first, before, last);
+        workspace.replaceEdge(last, after, first, after);
     }
 
     /**
-     * Verschieben der Routenrepräsentation
+     * Verschieben der Routenrepräsentation, entspricht dem Vertauschen zweier benachbarter Teilrouten (Or-opt)
      * @param newTour
+     * @param workspace nimmt die ersetzten Kanten auf
      * @param random
      */
-    private void shift(Node[] newTour, Random random) {
-        int n = nodePath.length;
-        int maxShiftableElements = n - 3;
+    private static void shift(int[] path, int[] newTour, Workspace workspace, RandomGenerator random) {
+        int n = path.length;
+        int maxShiftableElements = n - 2;
         int numElementsToShift = random.nextInt(maxShiftableElements) + 1; // wie viele Elemente sollen verschoben werden
-        int shiftIndex = random.nextInt(n-1-numElementsToShift); // ab welchen Index soll verschoben werden (nach rechts)
-        int shiftLength = random.nextInt(n-1-numElementsToShift-shiftIndex) + 1 ; // wie viele Stellen soll verschoben werden
-        Node[] temp = new Node[numElementsToShift];
+        int shiftIndex = random.nextInt(n-numElementsToShift); // ab welchen Index soll verschoben werden (nach rechts)
+        int shiftLength = random.nextInt(n-numElementsToShift-shiftIndex) + 1 ; // wie viele Stellen soll verschoben werden
+        int[] temp = workspace.buffer;
         System.arraycopy(newTour, shiftIndex, temp, 0, numElementsToShift);
         System.arraycopy(newTour, shiftIndex+numElementsToShift, newTour, shiftIndex, shiftLength);
         System.arraycopy(temp, 0, newTour, shiftIndex+shiftLength, numElementsToShift);
-        newTour[newTour.length-1] = newTour[0];
+
+        if (numElementsToShift + shiftLength == n) return; // nur rotiert
+        int secondStart = shiftIndex + numElementsToShift;
+        int secondEnd = secondStart + shiftLength - 1;
+        int before = predecessor(path, shiftIndex);
+        int firstHead = path[shiftIndex];
+        int firstTail = path[secondStart - 1];
+        int secondHead = path[secondStart];
+        int secondTail = path[secondEnd];
+        int after = successor(path, secondEnd);
+        workspace.replaceEdge(before, firstHead, before, secondHead);
+        workspace.replaceEdge(firstTail, secondHead, secondTail, firstHead);
+        workspace.replaceEdge(secondTail, after, firstTail, after);
     }
 
     public static void main(String[] args) {
         Graph g = CompleteGraphGenerator.generate("g", 10, 10,20);
-        Tour t1 = new Tour(g);
-        Tour t2 = new Tour(g);
-        Tour t3 = t1.cycleCrossover(t2);
+        DistanceMatrix distances = new DistanceMatrix(g);
+        Random random = new Random();
+        Workspace workspace = new Workspace(distances.size());
+        Tour t1 = new Tour(distances, random);
+        Tour t2 = new Tour(distances, random);
+        Tour t3 = t1.recombination(1, t2, new int[distances.size()], workspace, random);
         System.out.println(t1);
         System.out.println(t2);
         System.out.println(t3);
-        Tour t4 = t1.mutation(2);
-        System.out.println(Arrays.toString(t1.nodePath));
-        System.out.println(Arrays.toString(t4.nodePath));
+        Tour t4 = t1.mutation(2, new int[distances.size()], workspace, random);
+        System.out.println(Arrays.toString(t1.toNodePath(g)));
+        System.out.println(Arrays.toString(t4.toNodePath(g)));
     }
 
 }
@@ -0,0 +1,179 @@
+package naturanaloge_optimierungsverfahren.logic;
+
+import java.util.stream.IntStream;
+
+/**
+ * Symmetrische Distanzen kompakt gespeichert: nur ein Eintrag je ungerichtetem Paar {i, j}, i ≠ j, also
+ * n(n-1)/2 statt n² Werte, ohne Diagonale. Drei Speicherstufen, Längen werden immer in double summiert:
+ * <ul>
+ *     <li>{@link #DOUBLE}: 8 Byte je Paar, exakt.</li>
+ *     <li>{@link #FLOAT}: 4 Byte je Paar, relativer Fehler je Distanz höchstens 2^-24 (≈ 6·10^-8), die
+ *     Länge einer Tour weicht damit um höchstens 2^-24 ihrer Länge ab. Ganzzahlige Distanzen bis 2^24
+ *     sind exakt.</li>
+ *     <li>{@link #QUANTIZED}: 2 Byte je Paar, Distanz = min + q·scale mit q in 0..65535 und
+ *     scale = (max - min) / 65535. Absoluter Fehler je Distanz höchstens scale/2, je Tour höchstens
+ *     n·scale/2. Ganzzahlige Distanzen mit max - min ≤ 65535 werden mit scale = 1 exakt gespeichert.</li>
+ * </ul>
+ * Für 40 000 Knoten sind das 6,4 GB, 3,2 GB bzw. 1,6 GB statt 12,8 GB für die volle double-Matrix.
+ * Die Einträge werden einmal aus einer anderen Distanzfunktion übernommen, z.B. aus
+ * {@link EuclideanDistances} oder einer TSPLIB-Instanz, ohne eine volle Matrix anzulegen.
+ */
+public abstract class TriangularDistances implements Distances {
+
+    public static final int DOUBLE = 0;
+    public static final int FLOAT = 1;
+    public static final int QUANTIZED = 2;
+
+    private static final int LEVELS = 65535;
+
+    final int size;
+
+    TriangularDistances(int size) {
+        this.size = size;
+    }
+
+    /**
+     * @param source Distanzfunktion, wird für jedes Paar einmal abgefragt (QUANTIZED: zweimal), parallel
+     * @param storage DOUBLE, FLOAT oder QUANTIZED
+     * @return kompakte Kopie von source
+     */
+    public static TriangularDistances of(Distances source, int storage) {
+        int n = source.size();
+        if ((long) n * (n - 1) / 2 > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException(n + " nodes are too many for a triangular distance array");
+        }
+        return switch (storage) {
+            case DOUBLE -> new DoubleStorage(source);
+            case FLOAT -> new FloatStorage(source);
+            case QUANTIZED -> new QuantizedStorage(source);
+            default -> throw new IllegalArgumentException();
+        };
+    }
+
+    /**
+     * @return Index des Paars {i, j} mit i < j
+     */
+    static int index(int i, int j) {
+        return (int) ((long) j * (j - 1) / 2) + i;
+    }
+
+    /**
+     * Zeile j enthält die Paare {i, j} mit i < j, die Zeilen werden parallel gefüllt
+     */
+    static IntStream rows(int size) {
+        return IntStream.range(1, size).parallel();
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return größter möglicher Fehler einer einzelnen Distanz, relativ (FLOAT) oder absolut (QUANTIZED), 0 = exakt
+     */
+    public abstract double maxError();
+
+    private static final class DoubleStorage extends TriangularDistances {
+        private final double[] values;
+
+        DoubleStorage(Distances source) {
+            super(source.size());
+            values = new double[index(0, size)];
+            rows(size).forEach(j -> {
+                for (int i = 0; i < j; i++) {
+                    values[index(i, j)] = source.distance(i, j);
+                }
+            });
+        }
+
+        @Override
+        public double distance(int i, int j) {
+            if (i == j) return 0.0;
+            return i < j ? values[index(i, j)] : values[index(j, i)];
+        }
+
+        @Override
+        public double maxError() {
+            return 0.0;
+        }
+    }
+
+    private static final class FloatStorage extends TriangularDistances {
+        private final float[] values;
+
+        FloatStorage(Distances source) {
+            super(source.size());
+            values = new float[index(0, size)];
+            rows(size).forEach(j -> {
+                for (int i = 0; i < j; i++) {
+                    values[index(i, j)] = (float) source.distance(i, j);
+                }
+            });
+        }
+
+        @Override
+        public double distance(int i, int j) {
+            if (i == j) return 0.0;
+            return i < j ? values[index(i, j)] : values[index(j, i)];
+        }
+
+        @Override
+        public double maxError() {
+            return Math.ulp(1.0f) / 2;
+        }
+    }
+
+    private static final class QuantizedStorage extends TriangularDistances {
+        /** char als vorzeichenlose 16-Bit-Zahl */
+        private final char[] values;
+        private final double min;
+        private final double scale;
+        /** alle Distanzen ganzzahlig mit max - min ≤ 65535, dann ist scale = 1 und nichts wird gerundet */
+        private final boolean exact;
+
+        QuantizedStorage(Distances source) {
+            super(source.size());
+            double[] range = rows(size).mapToObj(j -> {
+                double low = Double.POSITIVE_INFINITY;
+                double high = Double.NEGATIVE_INFINITY;
+                boolean integral = true;
+                for (int i = 0; i < j; i++) {
+                    double d = source.distance(i, j);
+                    low = Math.min(low, d);
+                    high = Math.max(high, d);
+                    integral &= d == Math.rint(d);
+                }
+                return new double[]{low, high, integral ? 1 : 0};
+            }).reduce(new double[]{Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, 1}, (a, b) ->
+                    new double[]{Math.min(a[0], b[0]), Math.max(a[1], b[1]), Math.min(a[2], b[2])});
+            if (size > 1 && !(Double.isFinite(range[0]) && Double.isFinite(range[1]))) {
+                throw new IllegalArgumentException("distances must be finite");
+            }
+            min = size > 1 ? range[0] : 0.0;
+            double spread = size > 1 ? range[1] - range[0] : 0.0;
+            exact = spread == 0 || range[2] == 1 && spread <= LEVELS;
+            scale = exact ? 1.0 : spread / LEVELS;
+            values = new char[index(0, size)];
+            rows(size).forEach(j -> {
+                for (int i = 0; i < j; i++) {
+                    values[index(i, j)] = (char) Math.round((source.distance(i, j) - min) / scale);
+                }
+            });
+        }
+
+        @Override
+        public double distance(int i, int j) {
+            if (i == j) return 0.0;
+            return min + (i < j ? values[index(i, j)] : values[index(j, i)]) * scale;
+        }
+
+        /**
+         * @return scale/2, 0 wenn alle Distanzen ganzzahlig im darstellbaren Bereich liegen
+         */
+        @Override
+        public double maxError() {
+            return exact ? 0.0 : scale / 2;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package naturanaloge_optimierungsverfahren.logic;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Vektorisierte Längenberechnung über einer Distanzmatrix in zwei Durchgängen je Tour: zuerst werden die
+ * Matrixindizes path[k]*n + path[k+1] aller Kanten als int-Vektoren berechnet und in ein Indexarray
+ * geschrieben, danach werden die Distanzen mit
+ * {@link DoubleVector#fromArray(VectorSpecies, double[], int, int[], int)} gesammelt (Gather, auf AVX2/AVX-512
+ * vgatherdpd). Die Vector API nimmt die Indizes nur als Array, nicht als IntVector, deshalb der Umweg
+ * über das Indexarray. Bei zufälligen Touren bestimmen die Cache-Fehlzugriffe auf die Matrix die Laufzeit,
+ * der Gewinn gegenüber der skalaren Schleife ist daher klein (TourBenchmark.batchEvaluation, vectorized
+ * true/false). Wird nur über {@link BatchEvaluator#create(Distances)} geladen.
+ */
+class VectorBatchEvaluator extends BatchEvaluator {
+
+    private static final VectorSpecies<Double> DOUBLES = DoubleVector.SPECIES_PREFERRED;
+    /** gleiche Anzahl Lanes wie DOUBLES */
+    private static final VectorSpecies<Integer> INTS =
+            VectorSpecies.of(int.class, VectorShape.forBitSize(DOUBLES.vectorBitSize() / 2));
+
+    private final int size;
+    private final double[] matrix;
+
+    VectorBatchEvaluator(DistanceMatrix distances) {
+        super(distances);
+        this.size = distances.size();
+        this.matrix = distances.values();
+    }
+
+    static boolean isSupported() {
+        return DOUBLES.length() >= 2;
+    }
+
+    @Override
+    public void evaluate(int[][] paths, int count, double[] lengths) {
+        int lanes = DOUBLES.length();
+        // je Aufruf, derselbe Evaluator wird von mehreren Threads gleichzeitig benutzt
+        int[] indices = new int[size];
+        for (int t = 0; t < count; t++) {
+            int[] path = paths[t];
+            int edges = path.length - 1;
+            int bound = edges - edges % lanes;
+            for (int k = 0; k < bound; k += lanes) {
+                IntVector from = IntVector.fromArray(INTS, path, k);
+                IntVector to = IntVector.fromArray(INTS, path, k + 1);
+                from.mul(size).add(to).intoArray(indices, k);
+            }
+            DoubleVector sum = DoubleVector.zero(DOUBLES);
+            int k = 0;
+            for (; k < bound; k += lanes) {
+                sum = sum.add(DoubleVector.fromArray(DOUBLES, matrix, 0, indices, k));
+            }
+            double length = sum.reduceLanes(VectorOperators.ADD);
+            for (; k < edges; k++) {
+                length += matrix[path[k] * size + path[k + 1]];
+            }
+            lengths[t] = length + matrix[path[edges] * size + path[0]];
+        }
+    }
+
+    @Override
+    public boolean isVectorized() {
+        return true;
+    }
+}